@@ -1,5 +1,6 @@
 package com.samoylenko.bookingservice;
 
+import com.samoylenko.bookingservice.config.PayKeeperProperties;
 import com.samoylenko.bookingservice.config.ServiceProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -8,7 +9,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
-@EnableConfigurationProperties(ServiceProperties.class)
+@EnableConfigurationProperties({ServiceProperties.class, PayKeeperProperties.class})
 public class BookingServiceApplication {
 
     public static void main(String[] args) {
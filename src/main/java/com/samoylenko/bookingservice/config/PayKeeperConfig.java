@@ -0,0 +1,98 @@
+package com.samoylenko.bookingservice.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * HTTP-транспорт для PayKeeper: пул keep-alive соединений с явными таймаутами,
+ * автоматический выключатель и ограничение числа одновременных вызовов.
+ * Метрики пула публикуются как httpcomponents.httpclient.pool.*, время вызовов как http.client.requests,
+ * состояние выключателя как resilience4j.circuitbreaker.state.
+ */
+@Configuration
+public class PayKeeperConfig {
+    private static final String POOL_NAME = "paykeeper";
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager payKeeperConnectionManager(PayKeeperProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        var connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                .setTimeToLive(TimeValue.of(properties.getConnectionTimeToLive()))
+                .build();
+        var connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnections())
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+        meterRegistry.ifAvailable(new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME)::bindTo);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient payKeeperHttpClient(PoolingHttpClientConnectionManager connectionManager, PayKeeperProperties properties) {
+        var requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectTimeout()))
+                .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getConnectionTimeToLive()))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreaker payKeeperCircuitBreaker(PayKeeperProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        var config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getCircuitBreakerFailureRateThreshold())
+                .slowCallRateThreshold(properties.getCircuitBreakerFailureRateThreshold())
+                .slowCallDurationThreshold(properties.getCircuitBreakerSlowCallDuration())
+                .waitDurationInOpenState(properties.getCircuitBreakerWaitDuration())
+                .build();
+        var registry = CircuitBreakerRegistry.of(config);
+        meterRegistry.ifAvailable(TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry)::bindTo);
+        return registry.circuitBreaker(POOL_NAME);
+    }
+
+    @Bean
+    public Bulkhead payKeeperBulkhead(PayKeeperProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        var config = BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getBulkheadMaxConcurrentCalls())
+                .maxWaitDuration(properties.getBulkheadMaxWait())
+                .build();
+        var registry = BulkheadRegistry.of(config);
+        meterRegistry.ifAvailable(TaggedBulkheadMetrics.ofBulkheadRegistry(registry)::bindTo);
+        return registry.bulkhead(POOL_NAME);
+    }
+
+    @Bean
+    public RestTemplate payKeeperRestTemplate(ObjectProvider<RestTemplateBuilder> builder, CloseableHttpClient payKeeperHttpClient) {
+        return builder.getIfAvailable(RestTemplateBuilder::new)
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(payKeeperHttpClient))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.samoylenko.bookingservice.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.notNull;
+
+@Slf4j
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "paykeeper")
+public class PayKeeperProperties {
+    private String baseUrl;
+    private String login;
+    private String password;
+    private String notificationSecret;
+
+    private Duration connectTimeout;
+    private Duration readTimeout;
+    private Integer maxConnections;
+    private Duration connectionTimeToLive;
+    private Duration tokenTtl;
+
+    private Integer circuitBreakerFailureRateThreshold;
+    private Duration circuitBreakerSlowCallDuration;
+    private Duration circuitBreakerWaitDuration;
+    private Integer bulkheadMaxConcurrentCalls;
+    private Duration bulkheadMaxWait;
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        log.info("Scanning paykeeper properties...");
+
+        hasText(baseUrl, "baseUrl must be set");
+        hasText(login, "login must be set");
+        hasText(password, "password must be set");
+        hasText(notificationSecret, "notificationSecret must be set");
+        notNull(connectTimeout, "connectTimeout must be set");
+        notNull(readTimeout, "readTimeout must be set");
+        notNull(maxConnections, "maxConnections must be set");
+        notNull(connectionTimeToLive, "connectionTimeToLive must be set");
+        notNull(tokenTtl, "tokenTtl must be set");
+        notNull(circuitBreakerFailureRateThreshold, "circuitBreakerFailureRateThreshold must be set");
+        notNull(circuitBreakerSlowCallDuration, "circuitBreakerSlowCallDuration must be set");
+        notNull(circuitBreakerWaitDuration, "circuitBreakerWaitDuration must be set");
+        notNull(bulkheadMaxConcurrentCalls, "bulkheadMaxConcurrentCalls must be set");
+        notNull(bulkheadMaxWait, "bulkheadMaxWait must be set");
+
+        log.info("baseUrl: " + baseUrl);
+        log.info("login: " + login);
+        log.info("connectTimeout: " + connectTimeout);
+        log.info("readTimeout: " + readTimeout);
+        log.info("maxConnections: " + maxConnections);
+        log.info("connectionTimeToLive: " + connectionTimeToLive);
+        log.info("tokenTtl: " + tokenTtl);
+        log.info("circuitBreakerFailureRateThreshold: " + circuitBreakerFailureRateThreshold);
+        log.info("circuitBreakerSlowCallDuration: " + circuitBreakerSlowCallDuration);
+        log.info("circuitBreakerWaitDuration: " + circuitBreakerWaitDuration);
+        log.info("bulkheadMaxConcurrentCalls: " + bulkheadMaxConcurrentCalls);
+        log.info("bulkheadMaxWait: " + bulkheadMaxWait);
+    }
+}
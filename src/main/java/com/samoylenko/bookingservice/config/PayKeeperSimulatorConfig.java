@@ -0,0 +1,20 @@
+package com.samoylenko.bookingservice.config;
+
+import com.samoylenko.bookingservice.simulator.PayKeeperSimulator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Запускает имитатор PayKeeper вместе с приложением для локальных нагрузочных тестов.
+ */
+@Configuration
+@Profile("paykeeper-simulator")
+@EnableConfigurationProperties(PayKeeperSimulatorProperties.class)
+public class PayKeeperSimulatorConfig {
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PayKeeperSimulator payKeeperSimulator(PayKeeperSimulatorProperties properties) {
+        return new PayKeeperSimulator(properties);
+    }
+}
@@ -0,0 +1,54 @@
+package com.samoylenko.bookingservice.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+@Slf4j
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "paykeeper.simulator")
+public class PayKeeperSimulatorProperties {
+    private Integer port;
+    private LatencyDistribution latencyDistribution = LatencyDistribution.FIXED;
+    private Duration latency = Duration.ZERO;
+    private Duration latencyJitter = Duration.ZERO;
+    private double latencySigma;
+    private double errorRate;
+    private Duration paidAfter;
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        log.info("Scanning paykeeper simulator properties...");
+
+        notNull(port, "port must be set");
+        notNull(latencyDistribution, "latencyDistribution must be set");
+        notNull(latency, "latency must be set");
+        notNull(latencyJitter, "latencyJitter must be set");
+        isTrue(errorRate >= 0 && errorRate <= 1, "errorRate must be between 0 and 1");
+
+        log.info("port: " + port);
+        log.info("latencyDistribution: " + latencyDistribution);
+        log.info("latency: " + latency);
+        log.info("latencyJitter: " + latencyJitter);
+        log.info("latencySigma: " + latencySigma);
+        log.info("errorRate: " + errorRate);
+        log.info("paidAfter: " + paidAfter);
+    }
+
+    public enum LatencyDistribution {
+        // всегда latency
+        FIXED,
+        // равномерно в пределах latency ± latencyJitter
+        UNIFORM,
+        // логнормально с медианой latency и параметром формы latencySigma
+        LOG_NORMAL
+    }
+}
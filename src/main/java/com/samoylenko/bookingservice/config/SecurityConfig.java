@@ -84,6 +84,8 @@ public class SecurityConfig implements WebMvcConfigurer {
                         .requestMatchers("/api/v1/admin/auth/login").anonymous()
                         .requestMatchers("/api/v1/admin/**").authenticated()
                         .requestMatchers("/api/v1/dev/**").hasRole("OWNER")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().permitAll()
                 )
 //                .addFilterBefore(jsonLoginFilter, UsernamePasswordAuthenticationFilter.class)
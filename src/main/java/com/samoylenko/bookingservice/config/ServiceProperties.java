@@ -6,6 +6,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import static org.springframework.util.Assert.isTrue;
 import static org.springframework.util.Assert.notNull;
 
 @Slf4j
@@ -17,10 +18,31 @@ public class ServiceProperties {
     private String checkWalksToFinish;
     private Integer walkInBookingStatusDeadLine;
 
+    private boolean seatInventoryEnabled;
+    private Integer seatInventoryFlushPeriod;
+    private Integer seatInventoryReconcilePeriod;
+
+    private Integer walkCatalogPageCacheSize;
+    private Integer walkCatalogWalkCacheSize;
+    private Integer walkCatalogCacheTtl;
+
+    private Integer routeCacheTtl;
+
+    private Integer voucherCodeCacheSize;
+    private Integer voucherCodeCacheTtl;
+    private Integer voucherBatchMaxSize;
+    private Integer voucherBatchInsertSize;
+    private Integer voucherCodeFilterCapacity;
+    private Double voucherCodeFilterFalsePositiveRate;
+    private Integer voucherCodeFilterRefreshPeriod;
+
     private Integer bookingLifetime;
     private Integer bookingCheckPeriod;
 
     private Integer invoiceCheckPeriod;
+    private Integer paymentPollingConcurrency;
+    private Integer paymentPollingRateLimit;
+    private Integer paymentPollingBatchSize;
 
     private boolean groupDiscountEnabled;
     private Integer groupDiscountValuePercent;
@@ -38,9 +60,26 @@ public class ServiceProperties {
         notNull(checkWalkToCompleteBooking, "checkWalkToCompleteBooking must be set");
         notNull(checkWalksToFinish, "checkWalksToFinish must be set");
         notNull(walkInBookingStatusDeadLine, "walkInBookingStatusDeadLine must be set");
+        notNull(seatInventoryFlushPeriod, "seatInventoryFlushPeriod must be set");
+        notNull(seatInventoryReconcilePeriod, "seatInventoryReconcilePeriod must be set");
+        notNull(walkCatalogPageCacheSize, "walkCatalogPageCacheSize must be set");
+        notNull(walkCatalogWalkCacheSize, "walkCatalogWalkCacheSize must be set");
+        notNull(walkCatalogCacheTtl, "walkCatalogCacheTtl must be set");
+        notNull(routeCacheTtl, "routeCacheTtl must be set");
+        notNull(voucherCodeCacheSize, "voucherCodeCacheSize must be set");
+        notNull(voucherCodeCacheTtl, "voucherCodeCacheTtl must be set");
+        notNull(voucherBatchMaxSize, "voucherBatchMaxSize must be set");
+        notNull(voucherBatchInsertSize, "voucherBatchInsertSize must be set");
+        isTrue(voucherBatchInsertSize > 0 && voucherBatchInsertSize <= 5000, "voucherBatchInsertSize must be between 1 and 5000");
+        notNull(voucherCodeFilterCapacity, "voucherCodeFilterCapacity must be set");
+        notNull(voucherCodeFilterFalsePositiveRate, "voucherCodeFilterFalsePositiveRate must be set");
+        notNull(voucherCodeFilterRefreshPeriod, "voucherCodeFilterRefreshPeriod must be set");
         notNull(bookingLifetime, "bookingLifetime must be set");
         notNull(bookingCheckPeriod, "bookingCheckPeriod must be set");
         notNull(invoiceCheckPeriod, "invoiceCheckPeriod must be set");
+        notNull(paymentPollingConcurrency, "paymentPollingConcurrency must be set");
+        notNull(paymentPollingRateLimit, "paymentPollingRateLimit must be set");
+        notNull(paymentPollingBatchSize, "paymentPollingBatchSize must be set");
         notNull(groupDiscountValuePercent, "groupDiscountValuePercent must be set");
         notNull(groupDiscountValueAbsolute, "groupDiscountValueAbsolute must be set");
         notNull(groupDiscountMinPlaces, "groupDiscountMinPlaces must be set");
@@ -51,10 +90,28 @@ public class ServiceProperties {
         log.info("checkWalksToFinish: " + checkWalksToFinish);
         log.info("walkInBookingStatusDeadLine: " + walkInBookingStatusDeadLine);
 
+        log.info("seatInventoryEnabled: " + seatInventoryEnabled);
+        log.info("seatInventoryFlushPeriod: " + seatInventoryFlushPeriod);
+        log.info("seatInventoryReconcilePeriod: " + seatInventoryReconcilePeriod);
+        log.info("walkCatalogPageCacheSize: " + walkCatalogPageCacheSize);
+        log.info("walkCatalogWalkCacheSize: " + walkCatalogWalkCacheSize);
+        log.info("walkCatalogCacheTtl: " + walkCatalogCacheTtl);
+        log.info("routeCacheTtl: " + routeCacheTtl);
+        log.info("voucherCodeCacheSize: " + voucherCodeCacheSize);
+        log.info("voucherCodeCacheTtl: " + voucherCodeCacheTtl);
+        log.info("voucherBatchMaxSize: " + voucherBatchMaxSize);
+        log.info("voucherBatchInsertSize: " + voucherBatchInsertSize);
+        log.info("voucherCodeFilterCapacity: " + voucherCodeFilterCapacity);
+        log.info("voucherCodeFilterFalsePositiveRate: " + voucherCodeFilterFalsePositiveRate);
+        log.info("voucherCodeFilterRefreshPeriod: " + voucherCodeFilterRefreshPeriod);
+
         log.info("booking lifetime: " + bookingLifetime);
         log.info("bookingCheckPeriod: " + bookingCheckPeriod);
 
         log.info("invoiceCheckPeriod: " + invoiceCheckPeriod);
+        log.info("paymentPollingConcurrency: " + paymentPollingConcurrency);
+        log.info("paymentPollingRateLimit: " + paymentPollingRateLimit);
+        log.info("paymentPollingBatchSize: " + paymentPollingBatchSize);
 
         log.info("groupDiscountEnabled: " + groupDiscountEnabled);
         log.info("groupDiscountValuePercent: " + groupDiscountValuePercent);
@@ -4,6 +4,8 @@ import com.samoylenko.bookingservice.model.exception.EntityCreateException;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.model.exception.EntityUpdateException;
 import com.samoylenko.bookingservice.model.exception.ExceptionResponse;
+import com.samoylenko.bookingservice.model.exception.InvalidSignatureException;
+import com.samoylenko.bookingservice.model.exception.PaymentProviderUnavailableException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
@@ -42,6 +44,20 @@ public class ExceptionController {
         return handleException(e, request, HttpStatus.BAD_REQUEST);
     }
 
+    @ResponseBody
+    @ExceptionHandler(InvalidSignatureException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    public ExceptionResponse handleException(InvalidSignatureException e, HttpServletRequest request) {
+        return handleException(e, request, HttpStatus.FORBIDDEN);
+    }
+
+    @ResponseBody
+    @ExceptionHandler(PaymentProviderUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ExceptionResponse handleException(PaymentProviderUnavailableException e, HttpServletRequest request) {
+        return handleException(e, request, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ResponseBody
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
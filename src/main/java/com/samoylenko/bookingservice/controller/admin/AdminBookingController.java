@@ -1,9 +1,12 @@
 package com.samoylenko.bookingservice.controller.admin;
 
+import com.samoylenko.bookingservice.model.CursorSlice;
 import com.samoylenko.bookingservice.model.booking.*;
 import com.samoylenko.bookingservice.service.BookingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
@@ -11,11 +14,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.Assert;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.List;
 
+import static com.samoylenko.bookingservice.model.BaseRequest.MAX_SCROLL_SIZE;
 import static com.samoylenko.bookingservice.model.booking.BookingStatus.ACTIVE;
 import static com.samoylenko.bookingservice.model.booking.BookingStatus.COMPLETED;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -23,6 +28,7 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @RestController
 @RequestMapping("/api/v1/admin/bookings")
 @Tag(name = "Бронирования (для администратора)")
+@Validated
 @AllArgsConstructor
 public class AdminBookingController {
     private final BookingService bookingService;
@@ -107,6 +113,33 @@ public class AdminBookingController {
         return bookingService.getBookings(request);
     }
 
+    @Operation(summary = "Получить записи по курсору", description = "Доступен для роли MANAGER и выше. Keyset-пагинация по дате изменения без подсчета общего количества")
+    @PreAuthorize("hasRole('MANAGER')")
+    @GetMapping(value = "/scroll", produces = APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public CursorSlice<BookingDto> scrollOrders(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(MAX_SCROLL_SIZE) int size,
+            @RequestParam(value = "clientId", required = false) String clientId,
+            @RequestParam(value = "phone", required = false) String phone,
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "status", required = false) List<BookingStatus> status,
+            @RequestParam(value = "walkId", required = false) String walkId,
+            @RequestParam(value = "routeId", required = false) String routeId
+    ) {
+        var request = BookingRequest.builder()
+                .cursor(cursor)
+                .pageSize(size)
+                .clientId(clientId)
+                .clientPhone(phone)
+                .clientEmail(email)
+                .status(status)
+                .walkId(walkId)
+                .routeId(routeId)
+                .build();
+        return bookingService.scrollBookings(request);
+    }
+
     @Operation(summary = "Получить запись по id", description = "Доступен для роли MANAGER и выше")
     @PreAuthorize("hasRole('MANAGER')")
     @GetMapping(value = "/{id}", produces = APPLICATION_JSON_VALUE)
@@ -0,0 +1,36 @@
+package com.samoylenko.bookingservice.controller.admin;
+
+import com.samoylenko.bookingservice.model.client.ClientSummaryDto;
+import com.samoylenko.bookingservice.service.ClientService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RestController
+@RequestMapping("/api/v1/admin/clients")
+@Tag(name = "Клиенты (для администратора)")
+@AllArgsConstructor
+public class AdminClientController {
+    private final ClientService clientService;
+
+    @Operation(summary = "Получить сводку по клиенту", description = "Доступен для роли MANAGER и выше. Количество выполненных бронирований, сумма оплат и дата последней прогулки")
+    @PreAuthorize("hasRole('MANAGER')")
+    @GetMapping(value = "/{id}/summary", produces = APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public ClientSummaryDto getSummary(@PathVariable String id) {
+        return clientService.getSummary(id);
+    }
+
+    @Operation(summary = "Пересчитать статистику клиентов", description = "Доступен для роли ADMIN и выше. Пересчитывает статистику по всем выполненным бронированиям")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/stats/recalculate")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void recalculateStats() {
+        clientService.recalculateStats();
+    }
+}
@@ -1,16 +1,22 @@
 package com.samoylenko.bookingservice.controller.admin;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samoylenko.bookingservice.model.voucher.*;
 import com.samoylenko.bookingservice.service.PromotionService;
+import com.samoylenko.bookingservice.service.VoucherBatchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -19,6 +25,8 @@ import java.util.List;
 @AllArgsConstructor
 public class AdminVoucherController {
     private final PromotionService promotionService;
+    private final VoucherBatchService voucherBatchService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Создание промокода", description = "Доступен для роли MANAGER и выше")
     @PreAuthorize("hasRole('MANAGER')")
@@ -31,6 +39,28 @@ public class AdminVoucherController {
         return ResponseEntity.created(uri).body(voucher);
     }
 
+    @Operation(summary = "Массовая генерация промокодов",
+            description = "Создает count ваучеров по шаблону, код шаблона игнорируется. " +
+                          "Ответ - NDJSON, по строке на каждую записанную пачку с ее кодами. Доступен для роли MANAGER и выше")
+    @PreAuthorize("hasRole('MANAGER')")
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> createVouchers(@RequestBody VoucherCreateDto template,
+                                                                @RequestParam("count") int count) {
+        var codes = voucherBatchService.generateCodes(template, count);
+        StreamingResponseBody body = out -> voucherBatchService.createVouchers(template, codes, progress -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(progress));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @Operation(summary = "Получить промокод", description = "Доступен для роли MANAGER и выше")
     @PreAuthorize("hasRole('MANAGER')")
     @GetMapping("/{id}")
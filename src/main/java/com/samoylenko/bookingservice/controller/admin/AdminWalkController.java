@@ -1,5 +1,6 @@
 package com.samoylenko.bookingservice.controller.admin;
 
+import com.samoylenko.bookingservice.model.CursorSlice;
 import com.samoylenko.bookingservice.model.booking.BookingDto;
 import com.samoylenko.bookingservice.model.booking.BookingRequest;
 import com.samoylenko.bookingservice.model.booking.BookingStatus;
@@ -9,12 +10,15 @@ import com.samoylenko.bookingservice.service.WalkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -23,11 +27,13 @@ import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.util.List;
 
+import static com.samoylenko.bookingservice.model.BaseRequest.MAX_SCROLL_SIZE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RestController
 @RequestMapping("/api/v1/admin/walks")
 @Tag(name = "Прогулки (для администратора)")
+@Validated
 @AllArgsConstructor
 public class AdminWalkController {
     private final WalkService walkService;
@@ -94,6 +100,47 @@ public class AdminWalkController {
         return walkService.getWalksForAdmin(request);
     }
 
+    @Operation(summary = "Получить прогулки по курсору", description = "Доступен для роли MANAGER и выше. Keyset-пагинация без подсчета общего количества")
+    @PreAuthorize("hasRole('MANAGER')")
+    @GetMapping(value = "/scroll", produces = APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public CursorSlice<WalkDto> scrollWalks(
+            @Schema(description = "Курсор из поля nextCursor предыдущего ответа")
+            @RequestParam(value = "cursor", required = false) String cursor,
+
+            @Schema(description = "Размер страницы", example = "10")
+            @RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(MAX_SCROLL_SIZE) int size,
+
+            @Schema(description = "Идентификатор маршрута", example = "3f5d6702-8554-4137-85e0-4ada615e7253")
+            @RequestParam(value = "routeId", required = false) String routeId,
+
+            @Schema(description = "Минимальное время начала прогулки", example = "2024-01-01")
+            @RequestParam(value = "startAfter", required = false) LocalDate startAfter,
+
+            @Schema(description = "Максимальное время начала прогулки", example = "2024-12-01")
+            @RequestParam(value = "startBefore", required = false) LocalDate startBefore,
+
+            @Schema(description = "Количество доступных мест", example = "2")
+            @RequestParam(value = "availablePlaces", required = false) Integer availablePlaces,
+
+            @RequestParam(value = "status", required = false) WalkStatus status,
+            @RequestParam(value = "sortBy", required = false, defaultValue = "START_TIME") WalkRequest.SortField sortBy,
+            @RequestParam(value = "direction", required = false, defaultValue = "DESC") Sort.Direction direction
+    ) {
+        var request = WalkRequest.builder()
+                .cursor(cursor)
+                .pageSize(size)
+                .routeId(routeId)
+                .startAfter(startAfter == null ? null : startAfter.atTime(LocalTime.MIN).toInstant(ZoneOffset.UTC))
+                .startBefore(startBefore == null ? null : startBefore.atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC))
+                .availablePlaces(availablePlaces)
+                .status(status)
+                .sortBy(sortBy)
+                .direction(direction)
+                .build();
+        return walkService.scrollWalksForAdmin(request);
+    }
+
     @Operation(summary = "Получить прогулку по id", description = "Доступен для роли MANAGER и выше")
     @PreAuthorize("hasRole('MANAGER')")
     @GetMapping(value = "/{id}", produces = APPLICATION_JSON_VALUE)
@@ -10,6 +10,7 @@ import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -42,10 +43,12 @@ public class BookingController {
     }
 
 
-    @Operation(summary = "Получить бронирование")
+    @Operation(summary = "Получить бронирование", description = "Поддерживает If-None-Match и If-Modified-Since: если бронирование и платеж не менялись, возвращается 304 без тела")
     @GetMapping(value = "/{id}", produces = APPLICATION_JSON_VALUE)
-    @ResponseStatus(HttpStatus.OK)
-    public CompositeBookingDto getOrder(@PathVariable String id) {
+    public CompositeBookingDto getOrder(@PathVariable String id, WebRequest request) {
+        if (bookingService.getBookingTag(id).checkNotModified(request)) {
+            return null;
+        }
         return bookingService.getBookingForUser(id);
     }
 }
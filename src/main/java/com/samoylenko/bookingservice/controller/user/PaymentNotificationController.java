@@ -0,0 +1,42 @@
+package com.samoylenko.bookingservice.controller.user;
+
+import com.samoylenko.bookingservice.model.payment.paykeeper.PaymentNotification;
+import com.samoylenko.bookingservice.service.PaymentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
+
+@RestController
+@RequestMapping("/api/v1/payments/paykeeper")
+@Tag(name = "Уведомления платежной системы")
+@AllArgsConstructor
+public class PaymentNotificationController {
+    private final PaymentService paymentService;
+
+    @Operation(summary = "Принять уведомление PayKeeper об оплате")
+    @PostMapping(value = "/notification", consumes = APPLICATION_FORM_URLENCODED_VALUE, produces = TEXT_PLAIN_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public String notifyPayment(
+            @RequestParam("id") String id,
+            @RequestParam("sum") BigDecimal sum,
+            @RequestParam(value = "clientid", required = false) String clientId,
+            @RequestParam("orderid") String orderId,
+            @RequestParam("key") String key
+    ) {
+        var notification = PaymentNotification.builder()
+                .id(id)
+                .sum(sum)
+                .clientId(clientId)
+                .orderId(orderId)
+                .key(key)
+                .build();
+        return paymentService.confirmPayment(notification);
+    }
+}
@@ -1,5 +1,6 @@
 package com.samoylenko.bookingservice.controller.user;
 
+import com.samoylenko.bookingservice.model.EntityTag;
 import com.samoylenko.bookingservice.model.route.RouteDto;
 import com.samoylenko.bookingservice.service.RouteService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -7,6 +8,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,11 +21,14 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 public class RouteController {
     private final RouteService routeService;
 
-    @Operation(summary = "Получить все маршруты")
+    @Operation(summary = "Получить все маршруты", description = "Поддерживает If-None-Match: если маршруты не менялись, возвращается 304 без тела")
     @GetMapping(produces = APPLICATION_JSON_VALUE)
-    @ResponseStatus(HttpStatus.OK)
-    public List<RouteDto> getAllRouteDtos() {
-        return routeService.getAllRoutes();
+    public List<RouteDto> getAllRouteDtos(WebRequest request) {
+        var routes = routeService.getAllRoutes();
+        if (EntityTag.ofList(routes.size(), routes, RouteDto::getId, RouteDto::getVersion).checkNotModified(request)) {
+            return null;
+        }
+        return routes;
     }
 
     @Operation(summary = "Получить маршрут по id")
@@ -2,6 +2,8 @@ package com.samoylenko.bookingservice.controller.user;
 
 import com.samoylenko.bookingservice.model.discount.DiscountDto;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
+import com.samoylenko.bookingservice.service.PromotionService;
+import com.samoylenko.bookingservice.service.VoucherCodeFilter;
 import com.samoylenko.bookingservice.service.WalkService;
 import com.samoylenko.bookingservice.service.discount.DiscountManager;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,6 +21,8 @@ import java.math.BigDecimal;
 public class VoucherController {
     private final DiscountManager discountManager;
     private final WalkService walkService;
+    private final PromotionService promotionService;
+    private final VoucherCodeFilter voucherCodeFilter;
 
     @Operation(summary = "Получить итоговую стоймость бронирования")
     @GetMapping("/calculate")
@@ -37,6 +41,8 @@ public class VoucherController {
                 .price(BigDecimal.valueOf(walk.getPriceForOne()))
                 .phone(phone)
                 .build();
+        // несуществующие коды отсекаются фильтром, обработчики получат уже найденный ваучер
+        request.resolveVoucher(key -> voucherCodeFilter.lookup(key, promotionService::getVoucherByCode));
         return discountManager.calculateDiscount(request);
     }
 }
@@ -1,5 +1,7 @@
 package com.samoylenko.bookingservice.controller.user;
 
+import com.samoylenko.bookingservice.model.CursorSlice;
+import com.samoylenko.bookingservice.model.EntityTag;
 import com.samoylenko.bookingservice.model.walk.CompositeUserWalkDto;
 import com.samoylenko.bookingservice.model.walk.WalkDto;
 import com.samoylenko.bookingservice.model.walk.WalkRequest;
@@ -7,38 +9,48 @@ import com.samoylenko.bookingservice.model.walk.WalkStatus;
 import com.samoylenko.bookingservice.service.WalkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import static com.samoylenko.bookingservice.model.BaseRequest.MAX_SCROLL_SIZE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RestController
 @RequestMapping("/api/v1/walks")
 @Tag(name = "Прогулки (для пользователя)")
+@Validated
 @AllArgsConstructor
 public class WalkController {
     private final WalkService walkService;
 
-    @Operation(summary = "Получить прогулку по id")
+    @Operation(summary = "Получить прогулку по id", description = "Поддерживает If-None-Match: если прогулка и маршрут не менялись, возвращается 304 без тела")
     @GetMapping(value = "/{id}", produces = APPLICATION_JSON_VALUE)
-    @ResponseStatus(HttpStatus.OK)
-    public CompositeUserWalkDto getWalkForUser(@PathVariable String id) {
-        return walkService.getWalkForUser(id);
+    public CompositeUserWalkDto getWalkForUser(@PathVariable String id, WebRequest webRequest) {
+        var walk = walkService.getWalkForUser(id);
+        var routeVersion = walk.getRoute() != null ? walk.getRoute().getVersion() : null;
+        if (EntityTag.of(walk.getVersion(), routeVersion).checkNotModified(webRequest)) {
+            return null;
+        }
+        return walk;
     }
 
-    @Operation(summary = "Получить страницу с прогулками", description = "Допустима фильтрация по маршруту и количеству доступных мест")
+    @Operation(summary = "Получить страницу с прогулками", description = "Допустима фильтрация по маршруту и количеству доступных мест. Поддерживает If-None-Match")
     @GetMapping(produces = APPLICATION_JSON_VALUE)
-    @ResponseStatus(HttpStatus.OK)
     public Page<WalkDto> getPageOfWalks(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
             @RequestParam(value = "routeId", required = false) String routeId,
             @RequestParam(value = "places", defaultValue = "1") Integer places,
             @RequestParam(value = "sortBy", required = false, defaultValue = "START_TIME") WalkRequest.SortField sortBy,
-            @RequestParam(value = "direction", required = false, defaultValue = "DESC") Sort.Direction direction
+            @RequestParam(value = "direction", required = false, defaultValue = "DESC") Sort.Direction direction,
+            WebRequest webRequest
     ) {
         var request = WalkRequest.builder()
                 .pageNumber(page)
@@ -49,6 +61,34 @@ public class WalkController {
                 .sortBy(sortBy)
                 .direction(direction)
                 .build();
-        return walkService.getWalksForUser(request);
+        var walks = walkService.getWalksForUser(request);
+        var tag = EntityTag.ofList(walks.getTotalElements(), walks.getContent(), WalkDto::getId, WalkDto::getVersion);
+        if (tag.checkNotModified(webRequest)) {
+            return null;
+        }
+        return walks;
+    }
+
+    @Operation(summary = "Получить прогулки по курсору", description = "Keyset-пагинация без подсчета общего количества. Для следующей страницы передается nextCursor из ответа")
+    @GetMapping(value = "/scroll", produces = APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public CursorSlice<WalkDto> scrollWalks(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(MAX_SCROLL_SIZE) int size,
+            @RequestParam(value = "routeId", required = false) String routeId,
+            @RequestParam(value = "places", defaultValue = "1") Integer places,
+            @RequestParam(value = "sortBy", required = false, defaultValue = "START_TIME") WalkRequest.SortField sortBy,
+            @RequestParam(value = "direction", required = false, defaultValue = "DESC") Sort.Direction direction
+    ) {
+        var request = WalkRequest.builder()
+                .cursor(cursor)
+                .pageSize(size)
+                .status(WalkStatus.BOOKING_IN_PROGRESS)
+                .routeId(routeId)
+                .availablePlaces(places)
+                .sortBy(sortBy)
+                .direction(direction)
+                .build();
+        return walkService.scrollWalksForUser(request);
     }
 }
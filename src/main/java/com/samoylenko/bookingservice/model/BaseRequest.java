@@ -1,6 +1,7 @@
 package com.samoylenko.bookingservice.model;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 import org.springframework.data.domain.PageRequest;
@@ -10,8 +11,14 @@ import org.springframework.data.domain.Sort;
 @NoArgsConstructor
 @AllArgsConstructor
 public abstract class BaseRequest {
+    // максимальный размер страницы keyset-пагинации
+    public static final int MAX_SCROLL_SIZE = 100;
+
     protected Integer pageNumber;
     protected Integer pageSize;
+    // курсор keyset-пагинации, заменяет номер страницы
+    @Getter
+    protected String cursor;
 
     public PageRequest getPageRequest() {
         return PageRequest.of(
@@ -19,4 +26,8 @@ public abstract class BaseRequest {
                 pageSize == null ? 10 : pageSize,
                 Sort.by(Sort.Direction.DESC, "lastModifiedDate"));
     }
+
+    public int getPageSizeOrDefault() {
+        return pageSize == null ? 10 : pageSize;
+    }
 }
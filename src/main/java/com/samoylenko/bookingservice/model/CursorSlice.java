@@ -0,0 +1,36 @@
+package com.samoylenko.bookingservice.model;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации без подсчета общего количества. Следующая страница запрашивается по nextCursor.
+ */
+@Getter
+public class CursorSlice<T> extends SliceImpl<T> {
+    private final String nextCursor;
+
+    public CursorSlice(List<T> content, int size, Sort sort, String nextCursor) {
+        super(content, PageRequest.of(0, size, sort), nextCursor != null);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Собирает страницу из выборки размером size + 1: лишняя строка означает, что есть следующая страница.
+     */
+    public static <E, T> CursorSlice<T> of(List<E> rows, int size, Sort sort,
+                                           Function<E, PageCursor> cursor, Function<E, T> mapper) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        var hasNext = rows.size() > size;
+        var page = hasNext ? rows.subList(0, size) : rows;
+        var nextCursor = hasNext ? cursor.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorSlice<>(page.stream().map(mapper).toList(), size, sort, nextCursor);
+    }
+}
@@ -0,0 +1,58 @@
+package com.samoylenko.bookingservice.model;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Валидатор для условных GET-запросов: ETag из версий сущностей и, если есть, время последнего изменения.
+ * Считается без сборки и сериализации ответа.
+ */
+public record EntityTag(String etag, Instant lastModified) {
+
+    public static EntityTag of(Object... versions) {
+        return new EntityTag(quote(join(versions)), null);
+    }
+
+    /**
+     * Слабый ETag: представление может отличаться производными от времени полями при тех же версиях.
+     */
+    public static EntityTag weak(Instant lastModified, Object... versions) {
+        return new EntityTag("W/" + quote(join(versions)), lastModified);
+    }
+
+    /**
+     * ETag списка по id и версиям его элементов и общему количеству: меняется и при изменении элемента,
+     * и при его появлении или исчезновении из выборки.
+     */
+    public static <T> EntityTag ofList(long total, Collection<T> items, Function<T, String> id, Function<T, Integer> version) {
+        var raw = items.stream()
+                .map(item -> id.apply(item) + ":" + version.apply(item))
+                .collect(Collectors.joining(";", total + ";", ""));
+        return new EntityTag(quote(DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8))), null);
+    }
+
+    /**
+     * Проверяет If-None-Match и If-Modified-Since и выставляет ETag и Last-Modified в ответ.
+     * Если вернул true, статус 304 уже выставлен и тело формировать не нужно.
+     */
+    public boolean checkNotModified(WebRequest request) {
+        return lastModified == null
+                ? request.checkNotModified(etag)
+                : request.checkNotModified(etag, lastModified.toEpochMilli());
+    }
+
+    private static String join(Object... versions) {
+        return Arrays.stream(versions).map(String::valueOf).collect(Collectors.joining("-"));
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
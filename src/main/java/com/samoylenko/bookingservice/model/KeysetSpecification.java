@@ -0,0 +1,23 @@
+package com.samoylenko.bookingservice.model;
+
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+public class KeysetSpecification {
+
+    /**
+     * Записи, следующие за курсором при сортировке по (field, id) в заданном направлении.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T extends BaseEntity> Specification<T> after(String field, Comparable value, String id,
+                                                                Sort.Direction direction) {
+        return (root, query, cb) -> {
+            Path<Comparable> path = root.get(field);
+            Path<String> idPath = root.get("id");
+            return direction.isAscending() ?
+                    cb.or(cb.greaterThan(path, value), cb.and(cb.equal(path, value), cb.greaterThan(idPath, id))) :
+                    cb.or(cb.lessThan(path, value), cb.and(cb.equal(path, value), cb.lessThan(idPath, id)));
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.samoylenko.bookingservice.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации: значение поля сортировки и id последней записи страницы.
+ * Клиенту передается в виде непрозрачной base64-строки.
+ */
+public record PageCursor(String value, String id) {
+    private static final char SEPARATOR = '\n';
+
+    public static PageCursor of(Object value, String id) {
+        return new PageCursor(String.valueOf(value), id);
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException();
+            }
+            return new PageCursor(decoded.substring(0, separator), decoded.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        var raw = value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,9 @@
+package com.samoylenko.bookingservice.model.booking;
+
+import java.time.Instant;
+
+public interface BookingDeadline {
+    String getId();
+
+    Instant getEndTime();
+}
@@ -1,5 +1,7 @@
 package com.samoylenko.bookingservice.model.booking;
 
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
@@ -46,4 +48,22 @@ public class BookingSpecification {
                 cb.equal(root.get("walk").get("route").get("id"), routeId);
     }
 
+    /**
+     * Загружает клиента, прогулку с маршрутом и платеж тем же запросом, что и бронирования.
+     * В запрос количества соединения не добавляются.
+     */
+    public static Specification<BookingEntity> fetchDetails() {
+        return (root, query, cb) -> {
+            if (!isCountQuery(query)) {
+                root.fetch("client", JoinType.LEFT);
+                root.fetch("walk", JoinType.LEFT).fetch("route", JoinType.LEFT);
+                root.fetch("payment", JoinType.LEFT);
+            }
+            return cb.conjunction();
+        };
+    }
+
+    private static boolean isCountQuery(CriteriaQuery<?> query) {
+        return query.getResultType() == Long.class || query.getResultType() == long.class;
+    }
 }
@@ -0,0 +1,27 @@
+package com.samoylenko.bookingservice.model.booking;
+
+import com.samoylenko.bookingservice.model.EntityTag;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Версии бронирования, его клиента и платежа: по ним клиент, опрашивающий статус оплаты, получает 304.
+ */
+public record BookingVersion(Integer version, Instant lastModifiedDate,
+                             Integer clientVersion, Instant clientLastModifiedDate,
+                             Integer paymentVersion, Instant paymentLastModifiedDate) {
+
+    /**
+     * Слабый ETag, так как timeLeft в ответе считается от текущего времени.
+     */
+    public EntityTag toTag() {
+        var lastModified = Stream.of(lastModifiedDate, clientLastModifiedDate, paymentLastModifiedDate)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        return EntityTag.weak(lastModified, version, clientVersion, paymentVersion);
+    }
+}
@@ -0,0 +1,9 @@
+package com.samoylenko.bookingservice.model.booking;
+
+public interface ReleasedPlaces {
+    String getWalkId();
+
+    Long getPlaces();
+
+    Long getBookings();
+}
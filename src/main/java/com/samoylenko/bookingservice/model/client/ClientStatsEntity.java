@@ -0,0 +1,45 @@
+package com.samoylenko.bookingservice.model.client;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Накопительная статистика клиента по выполненным бронированиям.
+ * Обновляется в момент перевода бронирований в COMPLETED, см. BookingRepository.completePaidByWalks.
+ */
+@Getter
+@Setter
+@Builder
+@Generated
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "client_stats")
+public class ClientStatsEntity {
+    @Id
+    @Column(name = "client_id")
+    private String clientId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "client_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private ClientEntity client;
+
+    @Column(name = "completed_bookings", nullable = false)
+    private int completedBookings;
+
+    @Column(name = "total_spent", nullable = false)
+    private BigDecimal totalSpent;
+
+    @Column(name = "last_visit")
+    private Instant lastVisit;
+
+    @Column(name = "last_modified_date", nullable = false)
+    private Instant lastModifiedDate;
+}
@@ -0,0 +1,19 @@
+package com.samoylenko.bookingservice.model.client;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@ToString(callSuper = true)
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientSummaryDto extends ClientDto {
+    private int completedBookings;
+    private BigDecimal totalSpent;
+    private Instant lastVisit;
+}
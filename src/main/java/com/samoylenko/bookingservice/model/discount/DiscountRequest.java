@@ -1,9 +1,12 @@
 package com.samoylenko.bookingservice.model.discount;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.samoylenko.bookingservice.model.voucher.VoucherDto;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.util.function.Function;
 
 @Getter
 @Setter
@@ -19,4 +22,26 @@ public class DiscountRequest {
     private BigDecimal price;
     private String routeId;
     private String phone;
+
+    // ваучер, уже найденный по коду одним из обработчиков цепочки скидок
+    @JsonIgnore
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private VoucherDto voucher;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean voucherResolved;
+
+    /**
+     * Находит ваучер по коду один раз за запрос, следующие обработчики получают тот же результат.
+     */
+    public VoucherDto resolveVoucher(Function<String, VoucherDto> lookup) {
+        if (!voucherResolved) {
+            voucher = lookup.apply(code);
+            voucherResolved = true;
+        }
+        return voucher;
+    }
 }
@@ -0,0 +1,7 @@
+package com.samoylenko.bookingservice.model.exception;
+
+public class InvalidSignatureException extends RuntimeException {
+    public InvalidSignatureException(String paymentId) {
+        super("Invalid signature of payment notification " + paymentId);
+    }
+}
@@ -0,0 +1,7 @@
+package com.samoylenko.bookingservice.model.exception;
+
+public class PaymentProviderUnavailableException extends RuntimeException {
+    public PaymentProviderUnavailableException(Throwable cause) {
+        super("Payment provider unavailable", cause);
+    }
+}
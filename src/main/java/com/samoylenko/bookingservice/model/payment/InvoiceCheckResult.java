@@ -0,0 +1,7 @@
+package com.samoylenko.bookingservice.model.payment;
+
+/**
+ * Результат опроса счета в PayKeeper: PAID, EXPIRED или PENDING, если статус не изменился.
+ */
+public record InvoiceCheckResult(PendingInvoice invoice, PaymentStatus status) {
+}
@@ -0,0 +1,6 @@
+package com.samoylenko.bookingservice.model.payment;
+
+import java.time.Instant;
+
+public record PendingInvoice(String paymentId, String invoiceId, String bookingId, Instant latestPaymentTime) {
+}
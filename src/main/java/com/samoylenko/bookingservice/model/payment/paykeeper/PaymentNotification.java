@@ -0,0 +1,21 @@
+package com.samoylenko.bookingservice.model.payment.paykeeper;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Уведомление PayKeeper об оплате счета.
+ */
+@Value
+@Builder
+public class PaymentNotification {
+    // идентификатор платежа в PayKeeper
+    String id;
+    BigDecimal sum;
+    String clientId;
+    // идентификатор бронирования
+    String orderId;
+    String key;
+}
@@ -1,5 +1,6 @@
 package com.samoylenko.bookingservice.model.route;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.samoylenko.bookingservice.model.BaseDto;
 import jakarta.validation.constraints.NotBlank;
@@ -31,4 +32,7 @@ public class RouteDto extends BaseDto implements Serializable {
     private Integer priceForOne;
     private Instant createdDate;
     private Instant lastModifiedDate;
+    // версия сущности для ETag, в теле ответа не передается
+    @JsonIgnore
+    private Integer version;
 }
\ No newline at end of file
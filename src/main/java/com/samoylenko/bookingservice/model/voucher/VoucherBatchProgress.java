@@ -0,0 +1,18 @@
+package com.samoylenko.bookingservice.model.voucher;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Прогресс массовой генерации: очередная записанная пачка кодов.
+ */
+public record VoucherBatchProgress(
+        @Schema(description = "Сколько ваучеров записано с начала генерации")
+        int created,
+        @Schema(description = "Сколько ваучеров запрошено")
+        int total,
+        @Schema(description = "Коды, записанные этой пачкой")
+        List<String> codes
+) {
+}
@@ -1,5 +1,6 @@
 package com.samoylenko.bookingservice.model.walk;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.samoylenko.bookingservice.model.route.RouteDto;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
@@ -20,4 +21,7 @@ public class CompositeUserWalkDto {
     private Integer duration;
     private Instant startTime;
     private Instant endTime;
+    // версия сущности для ETag, в теле ответа не передается
+    @JsonIgnore
+    private Integer version;
 }
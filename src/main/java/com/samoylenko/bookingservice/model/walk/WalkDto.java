@@ -1,5 +1,6 @@
 package com.samoylenko.bookingservice.model.walk;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
@@ -23,4 +24,7 @@ public class WalkDto implements Serializable {
     private Integer duration;
     private Instant startTime;
     private Instant endTime;
+    // версия сущности для ETag, в теле ответа не передается
+    @JsonIgnore
+    private Integer version;
 }
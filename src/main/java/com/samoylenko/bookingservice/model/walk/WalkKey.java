@@ -0,0 +1,10 @@
+package com.samoylenko.bookingservice.model.walk;
+
+import java.time.Instant;
+
+/**
+ * Позиция в выборке прогулок, упорядоченной по (startTime, id).
+ */
+public record WalkKey(String id, Instant startTime) {
+    public static final WalkKey FIRST = new WalkKey("", Instant.EPOCH);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
 import java.time.Instant;
+import java.util.function.Function;
 
 @With
 @Getter
@@ -32,12 +33,22 @@ public class WalkRequest extends BaseRequest {
     @Getter
     @AllArgsConstructor
     public enum SortField {
-        START_TIME("startTime"),
-        END_TIME("endTime"),
-        AVAILABLE_PLACES("availablePlaces"),
-        RESERVED_PLACES("reservedPlaces");
+        START_TIME("startTime", WalkEntity::getStartTime, Instant::parse),
+        END_TIME("endTime", WalkEntity::getEndTime, Instant::parse),
+        AVAILABLE_PLACES("availablePlaces", WalkEntity::getAvailablePlaces, Integer::valueOf),
+        RESERVED_PLACES("reservedPlaces", WalkEntity::getReservedPlaces, Integer::valueOf);
 
         private final String fieldName;
+        private final Function<WalkEntity, Comparable<?>> value;
+        private final Function<String, Comparable<?>> parser;
+
+        public Comparable<?> parse(String value) {
+            try {
+                return parser.apply(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor value: " + value);
+            }
+        }
     }
 
     public PageRequest getPageRequest() {
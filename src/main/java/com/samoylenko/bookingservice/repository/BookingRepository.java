@@ -1,6 +1,171 @@
 package com.samoylenko.bookingservice.repository;
 
+import com.samoylenko.bookingservice.model.booking.BookingDeadline;
 import com.samoylenko.bookingservice.model.booking.BookingEntity;
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
+import com.samoylenko.bookingservice.model.booking.BookingVersion;
+import com.samoylenko.bookingservice.model.booking.ReleasedPlaces;
+import com.samoylenko.bookingservice.model.discount.DiscountStatus;
+import com.samoylenko.bookingservice.model.payment.PaymentStatus;
+import com.samoylenko.bookingservice.model.voucher.DiscountType;
+import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends BaseEntityRepository<BookingEntity> {
+    @Query("select b.id as id, b.endTime as endTime from BookingEntity b where b.status in :statuses")
+    List<BookingDeadline> findDeadlines(@Param("statuses") Collection<BookingStatus> statuses);
+
+    @Query("""
+            select new com.samoylenko.bookingservice.model.booking.BookingVersion(
+                b.version, b.lastModifiedDate, c.version, c.lastModifiedDate, p.version, p.lastModifiedDate)
+            from BookingEntity b
+            join b.client c
+            left join b.payment p
+            where b.id = :id
+            """)
+    Optional<BookingVersion> findVersionById(@Param("id") String id);
+
+    /**
+     * Бронирования прогулки вместе с клиентами и платежами одним запросом.
+     */
+    @Query("""
+            select b from BookingEntity b
+            join fetch b.client
+            left join fetch b.payment
+            where b.walk.id = :walkId
+            order by b.createdDate
+            """)
+    List<BookingEntity> findAllByWalkFetchDetails(@Param("walkId") String walkId);
+
+    /**
+     * Догружает сотрудников уже загруженных бронирований одним запросом.
+     */
+    @Query("select distinct b from BookingEntity b left join fetch b.employees where b in :bookings")
+    List<BookingEntity> fetchEmployees(@Param("bookings") Collection<BookingEntity> bookings);
+
+    /**
+     * Одним запросом переводит оплаченные бронирования прогулок в COMPLETED и добавляет их
+     * к статистике клиентов: каждое бронирование учитывается ровно один раз.
+     * Возвращает количество выполненных бронирований.
+     */
+    default int completePaidByWalks(Collection<String> walkIds, Instant now) {
+        return completePaidByWalks(walkIds, BookingStatus.PAID.ordinal(), BookingStatus.COMPLETED.ordinal(), now);
+    }
+
+    @Transactional
+    @Query(value = """
+            WITH completed AS (
+                UPDATE booking
+                SET status = :completedStatus,
+                    version = version + 1,
+                    last_modified_date = :now
+                WHERE walk_id IN (:walkIds) AND status = :paidStatus
+                RETURNING client_id, walk_id, payment_id
+            ), stats AS (
+                INSERT INTO client_stats (client_id, completed_bookings, total_spent, last_visit, last_modified_date)
+                SELECT c.client_id, count(*), coalesce(sum(p.total_cost), 0), max(w.start_time), :now
+                FROM completed c
+                JOIN walk w ON w.id = c.walk_id
+                LEFT JOIN payment p ON p.id = c.payment_id
+                GROUP BY c.client_id
+                ON CONFLICT (client_id) DO UPDATE
+                SET completed_bookings = client_stats.completed_bookings + excluded.completed_bookings,
+                    total_spent = client_stats.total_spent + excluded.total_spent,
+                    last_visit = greatest(client_stats.last_visit, excluded.last_visit),
+                    last_modified_date = excluded.last_modified_date
+            )
+            SELECT count(*) FROM completed
+            """, nativeQuery = true)
+    int completePaidByWalks(@Param("walkIds") Collection<String> walkIds,
+                            @Param("paidStatus") int paidStatus,
+                            @Param("completedStatus") int completedStatus,
+                            @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update versioned BookingEntity b set b.status = :to, b.lastModifiedDate = :now
+            where b.payment.id in :paymentIds and b.status = :from
+            """)
+    int updateStatusByPayments(@Param("paymentIds") Collection<String> paymentIds,
+                               @Param("from") BookingStatus from,
+                               @Param("to") BookingStatus to,
+                               @Param("now") Instant now);
+
+    /**
+     * Одним запросом переводит просроченные ACTIVE и WAITING_FOR_PAYMENT бронирования в EXPIRED,
+     * освобождает их места в прогулках и переводит ожидающие оплаты платежи в EXPIRED.
+     * Для платежей без выставленного счета отменяет применение ваучера.
+     * Возвращает количество освобожденных мест по каждой прогулке.
+     */
+    default List<ReleasedPlaces> expireOverdue(Instant now) {
+        return expireOverdue(
+                List.of(BookingStatus.ACTIVE.ordinal(), BookingStatus.WAITING_FOR_PAYMENT.ordinal()),
+                BookingStatus.EXPIRED.ordinal(),
+                PaymentStatus.PENDING.ordinal(),
+                PaymentStatus.EXPIRED.ordinal(),
+                DiscountStatus.ACTIVE.ordinal(),
+                DiscountType.CERTIFICATE.ordinal(),
+                VoucherStatus.ACTIVE.ordinal(),
+                VoucherStatus.APPLIED.ordinal(),
+                now);
+    }
+
+    @Transactional
+    @Query(value = """
+            WITH expired AS (
+                UPDATE booking
+                SET status = :expiredStatus,
+                    version = version + 1,
+                    last_modified_date = :now
+                WHERE status IN (:statuses) AND (end_time IS NULL OR end_time < :now)
+                RETURNING walk_id, number_of_people, payment_id
+            ), released AS (
+                UPDATE walk w
+                SET reserved_places = greatest(w.reserved_places - e.places, 0),
+                    available_places = w.max_places - greatest(w.reserved_places - e.places, 0),
+                    version = w.version + 1,
+                    last_modified_date = :now
+                FROM (SELECT walk_id, sum(number_of_people) AS places FROM expired GROUP BY walk_id) e
+                WHERE w.id = e.walk_id
+            ), payments AS (
+                UPDATE payment p
+                SET payment_status = :paymentExpiredStatus,
+                    version = p.version + 1,
+                    last_modified_date = :now
+                FROM expired e
+                WHERE p.id = e.payment_id AND p.payment_status = :paymentPendingStatus
+                RETURNING p.voucher_id, p.invoice_id, p.discount_status
+            ), vouchers AS (
+                UPDATE voucher v
+                SET count = greatest(v.count - r.uses, 0),
+                    status = CASE WHEN v.type = :certificateType THEN :voucherActiveStatus ELSE v.status END,
+                    version = v.version + 1,
+                    last_modified_date = :now
+                FROM (SELECT voucher_id, count(*) AS uses
+                      FROM payments
+                      WHERE invoice_id IS NULL AND voucher_id IS NOT NULL AND discount_status = :discountActiveStatus
+                      GROUP BY voucher_id) r
+                WHERE v.id = r.voucher_id AND (v.type <> :certificateType OR v.status = :voucherAppliedStatus)
+            )
+            SELECT walk_id AS "walkId", sum(number_of_people) AS "places", count(*) AS "bookings"
+            FROM expired
+            GROUP BY walk_id
+            """, nativeQuery = true)
+    List<ReleasedPlaces> expireOverdue(@Param("statuses") Collection<Integer> statuses,
+                                       @Param("expiredStatus") int expiredStatus,
+                                       @Param("paymentPendingStatus") int paymentPendingStatus,
+                                       @Param("paymentExpiredStatus") int paymentExpiredStatus,
+                                       @Param("discountActiveStatus") int discountActiveStatus,
+                                       @Param("certificateType") int certificateType,
+                                       @Param("voucherActiveStatus") int voucherActiveStatus,
+                                       @Param("voucherAppliedStatus") int voucherAppliedStatus,
+                                       @Param("now") Instant now);
 }
@@ -0,0 +1,44 @@
+package com.samoylenko.bookingservice.repository;
+
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
+import com.samoylenko.bookingservice.model.client.ClientStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ClientStatsRepository extends JpaRepository<ClientStatsEntity, String> {
+
+    /**
+     * Поиск по уникальному телефону клиента: два точечных обращения по индексам.
+     */
+    @Query("select s from ClientStatsEntity s where s.client.phone = :phone")
+    Optional<ClientStatsEntity> findByPhone(@Param("phone") String phone);
+
+    /**
+     * Полный пересчет статистики по выполненным бронированиям, например для уже накопленных данных.
+     */
+    default int recalculate(Instant now) {
+        return recalculate(BookingStatus.COMPLETED.ordinal(), now);
+    }
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO client_stats (client_id, completed_bookings, total_spent, last_visit, last_modified_date)
+            SELECT b.client_id, count(*), coalesce(sum(p.total_cost), 0), max(w.start_time), :now
+            FROM booking b
+            JOIN walk w ON w.id = b.walk_id
+            LEFT JOIN payment p ON p.id = b.payment_id
+            WHERE b.status = :completedStatus
+            GROUP BY b.client_id
+            ON CONFLICT (client_id) DO UPDATE
+            SET completed_bookings = excluded.completed_bookings,
+                total_spent = excluded.total_spent,
+                last_visit = excluded.last_visit,
+                last_modified_date = excluded.last_modified_date
+            """, nativeQuery = true)
+    int recalculate(@Param("completedStatus") int completedStatus, @Param("now") Instant now);
+}
@@ -1,6 +1,44 @@
 package com.samoylenko.bookingservice.repository;
 
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
 import com.samoylenko.bookingservice.model.payment.PaymentEntity;
+import com.samoylenko.bookingservice.model.payment.PaymentStatus;
+import com.samoylenko.bookingservice.model.payment.PendingInvoice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 public interface PaymentRepository extends BaseEntityRepository<PaymentEntity> {
+    @Query("""
+            select new com.samoylenko.bookingservice.model.payment.PendingInvoice(p.id, p.invoiceId, b.id, p.latestPaymentTime)
+            from BookingEntity b join b.payment p
+            where b.status = :bookingStatus and p.status = :paymentStatus and p.invoiceId is not null
+            """)
+    List<PendingInvoice> findPendingInvoices(@Param("bookingStatus") BookingStatus bookingStatus,
+                                             @Param("paymentStatus") PaymentStatus paymentStatus);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update versioned PaymentEntity p set p.status = :to, p.lastModifiedDate = :now
+            where p.id in :ids and p.status = :from
+            """)
+    int updateStatus(@Param("ids") Collection<String> ids,
+                     @Param("from") PaymentStatus from,
+                     @Param("to") PaymentStatus to,
+                     @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update versioned PaymentEntity p
+            set p.invoiceId = :invoiceId, p.invoiceUrl = :invoiceUrl, p.lastModifiedDate = :now
+            where p.id = :id and p.invoiceId is null
+            """)
+    int setInvoice(@Param("id") String id,
+                   @Param("invoiceId") String invoiceId,
+                   @Param("invoiceUrl") String invoiceUrl,
+                   @Param("now") Instant now);
 }
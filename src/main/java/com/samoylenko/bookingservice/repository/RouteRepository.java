@@ -9,4 +9,6 @@ public interface RouteRepository extends BaseEntityRepository<RouteEntity> {
     List<RouteEntity> findAll();
 
     List<RouteEntity> findAll(Sort sort);
+
+    List<RouteEntity> findAllByDeletedFalse(Sort sort);
 }
@@ -1,9 +1,15 @@
 package com.samoylenko.bookingservice.repository;
 
+import com.samoylenko.bookingservice.model.voucher.DiscountType;
 import com.samoylenko.bookingservice.model.voucher.VoucherEntity;
+import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +19,51 @@ public interface VoucherRepository extends BaseEntityRepository<VoucherEntity> {
     List<VoucherEntity> findAll(Specification spec, Sort sort);
 
     boolean existsByCode(String code);
+
+    @Query("select v.code from VoucherEntity v")
+    List<String> findAllCodes();
+
+    @Query("select v.code from VoucherEntity v where v.createdDate >= :since")
+    List<String> findCodesCreatedSince(@Param("since") Instant since);
+
+    /**
+     * Одно применение ваучера: увеличивает счетчик, сертификат переводит в APPLIED.
+     * Применяется только активный ваучер с неистекшим сроком, поэтому из одновременных запросов
+     * к сертификату успешен один.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update versioned VoucherEntity v
+            set v.count = v.count + 1,
+                v.status = case when v.type = :certificate then :applied else v.status end,
+                v.lastModifiedDate = :now
+            where v.code = :code
+              and v.status = :active
+              and (v.expiredAt is null or v.expiredAt > :now)
+            """)
+    int redeem(@Param("code") String code,
+               @Param("certificate") DiscountType certificate,
+               @Param("active") VoucherStatus active,
+               @Param("applied") VoucherStatus applied,
+               @Param("now") Instant now);
+
+    /**
+     * Отменяет одно применение ваучера, если счет по платежу так и не был выставлен.
+     * Примененный сертификат снова становится активным.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update versioned VoucherEntity v
+            set v.count = v.count - 1,
+                v.status = case when v.type = :certificate then :active else v.status end,
+                v.lastModifiedDate = :now
+            where v.code = :code
+              and v.count > 0
+              and (v.type <> :certificate or v.status = :applied)
+            """)
+    int release(@Param("code") String code,
+                @Param("certificate") DiscountType certificate,
+                @Param("active") VoucherStatus active,
+                @Param("applied") VoucherStatus applied,
+                @Param("now") Instant now);
 }
@@ -1,6 +1,90 @@
 package com.samoylenko.bookingservice.repository;
 
 import com.samoylenko.bookingservice.model.walk.WalkEntity;
+import com.samoylenko.bookingservice.model.walk.WalkKey;
+import com.samoylenko.bookingservice.model.walk.WalkStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface WalkRepository extends BaseEntityRepository<WalkEntity> {
+    @EntityGraph(attributePaths = "route")
+    Optional<WalkEntity> findWithRouteById(String id);
+
+    /**
+     * Резервирует места одним условным UPDATE. Возвращает 0, если свободных мест не хватает или прогулки нет.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE walk
+            SET reserved_places = reserved_places + :places,
+                available_places = max_places - reserved_places - :places,
+                version = version + 1,
+                last_modified_date = now()
+            WHERE id = :id AND max_places - reserved_places >= :places
+            """, nativeQuery = true)
+    int reservePlaces(@Param("id") String id, @Param("places") int places);
+
+    /**
+     * Освобождает места одним условным UPDATE. Возвращает 0, если зарезервировано меньше мест или прогулки нет.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE walk
+            SET reserved_places = reserved_places - :places,
+                available_places = max_places - reserved_places + :places,
+                version = version + 1,
+                last_modified_date = now()
+            WHERE id = :id AND reserved_places >= :places
+            """, nativeQuery = true)
+    int releasePlaces(@Param("id") String id, @Param("places") int places);
+
+    default List<WalkKey> findKeysStartingBefore(WalkStatus status, Instant startBefore, WalkKey after, int limit) {
+        return findKeysStartingBefore(status, startBefore, after.startTime(), after.id(), Limit.of(limit));
+    }
+
+    default List<WalkKey> findKeysEndingAfter(WalkStatus status, Instant endAfter, WalkKey after, int limit) {
+        return findKeysEndingAfter(status, endAfter, after.startTime(), after.id(), Limit.of(limit));
+    }
+
+    @Query("""
+            select new com.samoylenko.bookingservice.model.walk.WalkKey(w.id, w.startTime) from WalkEntity w
+            where w.status = :status and w.startTime <= :startBefore and w.route.deleted = false
+              and (w.startTime > :lastStartTime or (w.startTime = :lastStartTime and w.id > :lastId))
+            order by w.startTime, w.id
+            """)
+    List<WalkKey> findKeysStartingBefore(@Param("status") WalkStatus status,
+                                         @Param("startBefore") Instant startBefore,
+                                         @Param("lastStartTime") Instant lastStartTime,
+                                         @Param("lastId") String lastId,
+                                         Limit limit);
+
+    @Query("""
+            select new com.samoylenko.bookingservice.model.walk.WalkKey(w.id, w.startTime) from WalkEntity w
+            where w.status = :status and w.endTime >= :endAfter and w.route.deleted = false
+              and (w.startTime > :lastStartTime or (w.startTime = :lastStartTime and w.id > :lastId))
+            order by w.startTime, w.id
+            """)
+    List<WalkKey> findKeysEndingAfter(@Param("status") WalkStatus status,
+                                      @Param("endAfter") Instant endAfter,
+                                      @Param("lastStartTime") Instant lastStartTime,
+                                      @Param("lastId") String lastId,
+                                      Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update versioned WalkEntity w set w.status = :to, w.lastModifiedDate = :now
+            where w.id in :ids and w.status = :from
+            """)
+    int updateStatus(@Param("ids") Collection<String> ids,
+                     @Param("from") WalkStatus from,
+                     @Param("to") WalkStatus to,
+                     @Param("now") Instant now);
 }
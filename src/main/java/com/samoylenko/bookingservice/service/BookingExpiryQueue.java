@@ -0,0 +1,92 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.booking.BookingDeadline;
+import com.samoylenko.bookingservice.repository.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import static com.samoylenko.bookingservice.service.BookingService.EXPIRABLE_STATUSES;
+
+/**
+ * Очередь сроков жизни бронирований. Каждое бронирование переводится в EXPIRED
+ * отдельным потоком сразу после наступления endTime, без периодического сканирования таблицы.
+ */
+@Slf4j
+@Component
+public class BookingExpiryQueue {
+    private static final String ACTOR = "SYSTEM_EXPIRY_QUEUE";
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+    private volatile Thread worker;
+
+    public BookingExpiryQueue(@Lazy BookingService bookingService, BookingRepository bookingRepository) {
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        var deadlines = bookingRepository.findDeadlines(EXPIRABLE_STATUSES);
+        deadlines.forEach(this::schedule);
+        log.info("Booking expiry queue restored with {} bookings", deadlines.size());
+        worker = Thread.ofPlatform()
+                .name("booking-expiry")
+                .daemon()
+                .start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public void schedule(BookingDeadline deadline) {
+        schedule(deadline.getId(), deadline.getEndTime());
+    }
+
+    public void schedule(String bookingId, Instant endTime) {
+        queue.add(new Deadline(bookingId, endTime == null ? Instant.now() : endTime));
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                var deadline = queue.take();
+                bookingService.expireBooking(deadline.bookingId(), ACTOR);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Failed to expire booking", e);
+            }
+        }
+    }
+
+    private record Deadline(String bookingId, Instant endTime) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(endTime.toEpochMilli() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return endTime.compareTo(((Deadline) other).endTime);
+        }
+    }
+}
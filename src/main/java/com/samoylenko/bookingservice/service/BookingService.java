@@ -1,28 +1,35 @@
 package com.samoylenko.bookingservice.service;
 
 import com.samoylenko.bookingservice.config.ServiceProperties;
+import com.samoylenko.bookingservice.model.CursorSlice;
+import com.samoylenko.bookingservice.model.EntityTag;
+import com.samoylenko.bookingservice.model.KeysetSpecification;
+import com.samoylenko.bookingservice.model.PageCursor;
 import com.samoylenko.bookingservice.model.booking.*;
-import com.samoylenko.bookingservice.model.client.ClientDto;
 import com.samoylenko.bookingservice.model.exception.EntityCreateException;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
+import com.samoylenko.bookingservice.model.exception.PaymentProviderUnavailableException;
 import com.samoylenko.bookingservice.model.payment.PaymentCreateDto;
 import com.samoylenko.bookingservice.model.payment.PaymentDto;
 import com.samoylenko.bookingservice.model.payment.PaymentStatus;
 import com.samoylenko.bookingservice.repository.BookingRepository;
 import com.samoylenko.bookingservice.repository.PaymentRepository;
-import jakarta.annotation.PostConstruct;
+import com.samoylenko.bookingservice.service.mapper.BookingMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
 import java.math.BigDecimal;
+import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
@@ -33,12 +40,16 @@ import static com.samoylenko.bookingservice.model.exception.EntityType.PAYMENT;
 import static java.time.Duration.between;
 import static java.time.Instant.now;
 import static java.time.temporal.ChronoUnit.MINUTES;
+import static org.springframework.data.domain.Sort.Direction.DESC;
 
 @Slf4j
 @Service
 @Validated
 @AllArgsConstructor
 public class BookingService {
+    public static final List<BookingStatus> EXPIRABLE_STATUSES = List.of(BookingStatus.ACTIVE, BookingStatus.WAITING_FOR_PAYMENT);
+    private static final String LAST_MODIFIED_DATE = "lastModifiedDate";
+
     private final ServiceProperties properties;
     private final WalkService walkService;
     private final PaymentService paymentService;
@@ -46,24 +57,9 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final PaymentRepository paymentRepository;
     private final EmployeeService employeeService;
-    private final ModelMapper mapper;
-
-    @PostConstruct
-    public void init() {
-        mapper.createTypeMap(BookingEntity.class, BookingDto.class)
-                .addMappings(mapper -> mapper.map(src -> src.getWalk().getId(), BookingDto::setWalkId))
-                .addMappings(mapper -> mapper.map(src -> src.getWalk().getStartTime(), BookingDto::setWalkStartTime))
-                .addMappings(mapper -> mapper.map(src -> src.getWalk().getRoute().getName(), BookingDto::setRouteName))
-                .addMappings(mapper -> mapper.map(src -> src.getPayment().getTotalCost(), BookingDto::setTotalCost));
-
-        mapper.createTypeMap(BookingEntity.class, CompositeBookingDto.class)
-                .addMappings(mapper -> mapper.map(BookingEntity::getId, CompositeBookingDto::setId))
-                .addMappings(mapper -> mapper.map(BookingEntity::getCreatedDate, CompositeBookingDto::setCreatedDate))
-                .addMappings(mapper -> mapper.map(BookingEntity::getLastModifiedDate, CompositeBookingDto::setLastModifiedDate))
-                .addMappings(mapper -> mapper.map(BookingEntity::getStatus, CompositeBookingDto::setStatus))
-                .addMappings(mapper -> mapper.map(src -> src.getWalk().getId(), CompositeBookingDto::setWalkId))
-                .addMappings(mapper -> mapper.map(BookingEntity::getNumberOfPeople, CompositeBookingDto::setNumberOfPeople));
-    }
+    private final BookingExpiryQueue expiryQueue;
+    private final BookingMapper mapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public CompositeBookingDto create(@Valid BookingCreateDto dto) {
@@ -84,6 +80,7 @@ public class BookingService {
                     .endTime(endTime)
                     .build());
             booking = bookingRepository.save(booking);
+            expiryQueue.schedule(booking.getId(), endTime);
             var bookingDto = getBookingForUser(booking.getId());
             log.info("Booking created with id: {}, status: {}", booking.getId(), booking.getStatus());
             return bookingDto;
@@ -92,74 +89,113 @@ public class BookingService {
         }
     }
 
-    @Transactional
+    /**
+     * Выставляет счет по бронированию в две короткие транзакции, между которыми выполняется
+     * запрос к PayKeeper, поэтому соединение с БД не удерживается на время удаленного вызова.
+     */
     public CompositeBookingDto createInvoice(@NotBlank String id, String voucher) {
         log.info("Creating invoice for booking: {}", id);
         try {
-            var booking = getBookingEntity(id);
-            var oldStatus = booking.getStatus();
-            var walk = booking.getWalk();
-            log.info("Walk:  {}", walk.getId());
-            var client = mapper.map(booking.getClient(), ClientDto.class);
-            log.info("Client: {}", client);
-
-            if (booking.getPayment() != null) {
-                log.info("Attempting to create second invoice for booking: {}", booking.getId());
-                return getBookingForUser(booking.getId());
-            }
-
-            var payment = paymentService.createPaymentDocument(PaymentCreateDto.builder()
-                    .bookingId(booking.getId())
-                    .routeId(walk.getRoute().getId())
-                    .serviceName(walk.getRoute().getServiceName())
-                    .quantity(booking.getNumberOfPeople())
-                    .priceForOne(BigDecimal.valueOf(walk.getPriceForOne()))
-                    .voucher(voucher)
-                    .client(client)
-                    .expiryTime(booking.getEndTime())
-                    .build());
-            log.info("Invoice created: {}", payment);
-            booking.setPayment(paymentRepository.findById(payment.getId()).orElse(null));
-            if (payment.getStatus().equals(PaymentStatus.PAID)) {
-                booking.setStatus(BookingStatus.PAID);
-            } else {
-                booking.setStatus(BookingStatus.WAITING_FOR_PAYMENT);
+            var paymentId = transactionTemplate.execute(status -> createPaymentIntent(id, voucher));
+            try {
+                paymentService.issueInvoice(paymentId);
+            } catch (RuntimeException e) {
+                log.warn("Invoice for booking {} has not been issued, payment intent {} will be canceled", id, paymentId);
+                paymentService.cancelPaymentIntent(paymentId);
+                throw e;
             }
-            bookingRepository.save(booking);
-            var bookingDto = getBookingForUser(booking.getId());
-            log.info("Updating status for booking {} from {} to {}", booking.getId(), oldStatus, booking.getStatus());
-            return bookingDto;
+            return transactionTemplate.execute(status -> getBookingForUser(id));
+        } catch (PaymentProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new EntityCreateException(PAYMENT, e);
         }
     }
 
+    private String createPaymentIntent(String id, String voucher) {
+        var booking = getBookingEntity(id);
+        var oldStatus = booking.getStatus();
+        if (booking.getPayment() != null) {
+            log.info("Attempting to create second invoice for booking: {}", booking.getId());
+            return booking.getPayment().getId();
+        }
+        var walk = booking.getWalk();
+        log.info("Walk:  {}", walk.getId());
+        var client = mapper.toClientDto(booking.getClient());
+        log.info("Client: {}", client);
+
+        var payment = paymentService.createPaymentIntent(PaymentCreateDto.builder()
+                .bookingId(booking.getId())
+                .routeId(walk.getRoute().getId())
+                .serviceName(walk.getRoute().getServiceName())
+                .quantity(booking.getNumberOfPeople())
+                .priceForOne(BigDecimal.valueOf(walk.getPriceForOne()))
+                .voucher(voucher)
+                .client(client)
+                .expiryTime(booking.getEndTime())
+                .build());
+        log.info("Payment intent created: {}", payment);
+        // применение ваучера очищает контекст персистентности, бронирование перечитывается вместе с платежом
+        booking = getBookingEntity(id);
+        if (payment.getStatus().equals(PaymentStatus.PAID)) {
+            booking.setStatus(BookingStatus.PAID);
+        } else {
+            booking.setStatus(BookingStatus.WAITING_FOR_PAYMENT);
+        }
+        bookingRepository.save(booking);
+        log.info("Updating status for booking {} from {} to {}", booking.getId(), oldStatus, booking.getStatus());
+        return payment.getId();
+    }
+
     @Transactional
     public Page<BookingDto> getBookings(BookingRequest request) {
-        var spec = BookingSpecification
+        return bookingRepository.findAll(filter(request).and(fetchDetails()), request.getPageRequest())
+                .map(mapper::toDto);
+    }
+
+    /**
+     * Keyset-пагинация по (lastModifiedDate, id) в обратном порядке: без COUNT и без OFFSET.
+     */
+    @Transactional
+    public CursorSlice<BookingDto> scrollBookings(BookingRequest request) {
+        var spec = filter(request).and(fetchDetails());
+        if (request.getCursor() != null) {
+            var cursor = PageCursor.decode(request.getCursor());
+            spec = spec.and(KeysetSpecification.after(LAST_MODIFIED_DATE, parseInstant(cursor.value()), cursor.id(), DESC));
+        }
+        var size = request.getPageSizeOrDefault();
+        var sort = Sort.by(DESC, LAST_MODIFIED_DATE, "id");
+        var bookings = bookingRepository.findBy(spec, query -> query.sortBy(sort).limit(size + 1).all());
+        return CursorSlice.of(bookings, size, sort,
+                booking -> PageCursor.of(booking.getLastModifiedDate(), booking.getId()),
+                mapper::toDto);
+    }
+
+    private static Instant parseInstant(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor value: " + value);
+        }
+    }
+
+    private Specification<BookingEntity> filter(BookingRequest request) {
+        return BookingSpecification
                 .withClientId(request.getClientId())
                 .and(withPhone(request.getClientPhone()))
                 .and(withEmail(request.getClientEmail()))
                 .and(withWalk(request.getWalkId()))
                 .and(withStatus(request.getStatus()))
                 .and(withRoute(request.getRouteId()));
-        var pageRequest = request.getPageRequest();
-
-        return bookingRepository.findAll(spec, pageRequest)
-                .map(booking -> mapper.map(booking, BookingDto.class));
     }
 
-    @Transactional
-    public List<BookingDto> getBookingList(BookingRequest request) {
-        var spec = BookingSpecification
-                .withClientId(request.getClientId())
-                .and(withPhone(request.getClientPhone()))
-                .and(withEmail(request.getClientEmail()))
-                .and(withWalk(request.getWalkId()))
-                .and(withStatus(request.getStatus()));
-        return bookingRepository.findAll(spec).stream()
-                .map(booking -> mapper.map(booking, BookingDto.class))
-                .toList();
+    /**
+     * Валидатор для условного GET бронирования: один запрос по версиям, без загрузки и сборки ответа.
+     */
+    public EntityTag getBookingTag(@NotBlank String id) {
+        return bookingRepository.findVersionById(id)
+                .map(BookingVersion::toTag)
+                .orElseThrow(() -> new EntityNotFoundException(BOOKING, id));
     }
 
     @Transactional
@@ -171,8 +207,8 @@ public class BookingService {
             payment = paymentService.getPaymentById(booking.getPayment().getId());
         }
 
-        var client = mapper.map(booking.getClient(), ClientDto.class);
-        var bookingInfo = mapper.map(booking, BookingInfo.class);
+        var client = mapper.toClientDto(booking.getClient());
+        var bookingInfo = mapper.toInfo(booking);
         var timeLeft = between(now(), booking.getEndTime()).compareTo(Duration.ofMinutes(0)) > 0 ?
                 between(Instant.now(), booking.getEndTime()) :
                 Duration.ofMinutes(0);
@@ -193,20 +229,29 @@ public class BookingService {
 
     @Transactional
     public AdminBookingDto getBookingForAdmin(@NotBlank String id) {
-        var bookingEntity = getBookingEntity(id);
-        var client = mapper.map(bookingEntity.getClient(), ClientDto.class);
-        var bookingInfo = mapper.map(bookingEntity, BookingInfo.class);
+        return toAdminDto(getBookingEntity(id));
+    }
+
+    /**
+     * Бронирования прогулки для администратора. Число запросов не зависит от количества бронирований.
+     */
+    @Transactional
+    public List<AdminBookingDto> getBookingsForAdmin(@NotBlank String walkId) {
+        var bookings = bookingRepository.findAllByWalkFetchDetails(walkId);
+        if (!bookings.isEmpty()) {
+            bookingRepository.fetchEmployees(bookings);
+        }
+        return bookings.stream()
+                .map(this::toAdminDto)
+                .toList();
+    }
+
+    private AdminBookingDto toAdminDto(BookingEntity bookingEntity) {
         var timeLeft = between(now(), bookingEntity.getEndTime()).compareTo(Duration.ofMinutes(0)) > 0 ?
                 between(Instant.now(), bookingEntity.getEndTime()) :
                 Duration.ofMinutes(0);
-        var dto = mapper.map(bookingEntity, AdminBookingDto.class);
-        dto.setClient(client);
-        dto.setInfo(bookingInfo);
+        var dto = mapper.toAdminDto(bookingEntity);
         dto.setTimeLeft(timeLeft);
-        if (bookingEntity.getPayment() != null) {
-            var payment = paymentService.getPaymentById(bookingEntity.getPayment().getId());
-            dto.setPayment(payment);
-        }
         var employees = bookingEntity.getEmployees().stream()
                 .map(employeeService::toDto)
                 .toList();
@@ -231,6 +276,57 @@ public class BookingService {
         log.info("Updated status of booking {} from {} to {} by {}", bookingId, oldStatus, status, actor);
     }
 
+    /**
+     * Переводит бронирование в EXPIRED, если срок его жизни истек, и освобождает места прогулки.
+     * Возвращает false, если бронирование уже оплачено, отменено или еще не истекло.
+     */
+    @Transactional
+    public boolean expireBooking(@NotBlank String id, @NotBlank String actor) {
+        var booking = bookingRepository.findById(id).orElse(null);
+        if (booking == null || !EXPIRABLE_STATUSES.contains(booking.getStatus())
+                || booking.getEndTime() != null && booking.getEndTime().isAfter(now())) {
+            return false;
+        }
+        var oldStatus = booking.getStatus();
+        booking.setStatus(BookingStatus.EXPIRED);
+        var payment = booking.getPayment();
+        // как и в expireOverdue, истекает только ожидающий оплаты платеж
+        var paymentExpired = oldStatus.equals(BookingStatus.WAITING_FOR_PAYMENT)
+                && payment != null && payment.getStatus() == PaymentStatus.PENDING;
+        if (paymentExpired) {
+            payment.setStatus(PaymentStatus.EXPIRED);
+        }
+        bookingRepository.save(booking);
+        walkService.releasePlaces(booking.getWalk().getId(), booking.getNumberOfPeople());
+        log.info("Updated status of booking {} from {} to {} by {}", id, oldStatus, BookingStatus.EXPIRED, actor);
+        if (paymentExpired && payment.getInvoiceId() == null) {
+            // счет не был выставлен, оплатить ваучер было нечем
+            paymentService.releaseDiscount(payment);
+        }
+        return true;
+    }
+
+    @Transactional
+    public long expireOverdueBookings(@NotBlank String actor) {
+        var released = bookingRepository.expireOverdue(now());
+        var expired = 0L;
+        for (var places : released) {
+            walkService.onPlacesReleased(places.getWalkId(), places.getPlaces().intValue());
+            expired += places.getBookings();
+        }
+        if (expired > 0) {
+            log.info("Expired {} bookings of {} walks by {}", expired, released.size(), actor);
+        }
+        return expired;
+    }
+
+    @Transactional
+    public int completePaidBookings(@NotNull List<String> walkIds, @NotBlank String actor) {
+        var completed = bookingRepository.completePaidByWalks(walkIds, now());
+        log.info("Updated status of {} bookings from {} to {} by {}", completed, BookingStatus.PAID, BookingStatus.COMPLETED, actor);
+        return completed;
+    }
+
     @Transactional
     public AdminBookingDto addEmployee(@NotBlank String id, @NotBlank String employeeId) {
         log.info("Adding employee {} to booking {}", employeeId, id);
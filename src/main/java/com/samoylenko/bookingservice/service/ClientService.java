@@ -2,20 +2,31 @@ package com.samoylenko.bookingservice.service;
 
 import com.samoylenko.bookingservice.model.client.ClientCreateDto;
 import com.samoylenko.bookingservice.model.client.ClientEntity;
+import com.samoylenko.bookingservice.model.client.ClientSummaryDto;
+import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.repository.ClientRepository;
+import com.samoylenko.bookingservice.repository.ClientStatsRepository;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static com.samoylenko.bookingservice.model.exception.EntityType.CLIENT;
+
 @Slf4j
 @Service
 @Validated
 @AllArgsConstructor
 public class ClientService {
     private final ClientRepository clientRepository;
+    private final ClientStatsRepository clientStatsRepository;
     private final ModelMapper modelMapper;
 
     public ClientEntity createIfNotExist(@Valid ClientCreateDto clientDto) {
@@ -43,4 +54,44 @@ public class ClientService {
                 .dateOfBirth(clientDto.getDateOfBirth())
                 .build());
     }
+
+    /**
+     * Есть ли у клиента выполненные бронирования. Читает накопленную статистику, а не сами бронирования.
+     */
+    @Transactional(readOnly = true)
+    public boolean hasCompletedBookings(String phone) {
+        if (phone == null) {
+            return false;
+        }
+        return clientStatsRepository.findByPhone(phone)
+                .map(stats -> stats.getCompletedBookings() > 0)
+                .orElse(false);
+    }
+
+    @Transactional(readOnly = true)
+    public ClientSummaryDto getSummary(@NotBlank String id) {
+        var client = clientRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(CLIENT, id));
+        var stats = clientStatsRepository.findById(id).orElse(null);
+        return ClientSummaryDto.builder()
+                .id(client.getId())
+                .createdDate(client.getCreatedDate())
+                .lastModifiedDate(client.getLastModifiedDate())
+                .firstName(client.getFirstName())
+                .lastName(client.getLastName())
+                .email(client.getEmail())
+                .phone(client.getPhone())
+                .dateOfBirth(client.getDateOfBirth())
+                .completedBookings(stats != null ? stats.getCompletedBookings() : 0)
+                .totalSpent(stats != null ? stats.getTotalSpent() : BigDecimal.ZERO)
+                .lastVisit(stats != null ? stats.getLastVisit() : null)
+                .build();
+    }
+
+    @Transactional
+    public int recalculateStats() {
+        var updated = clientStatsRepository.recalculate(Instant.now());
+        log.info("Recalculated statistics of {} clients", updated);
+        return updated;
+    }
 }
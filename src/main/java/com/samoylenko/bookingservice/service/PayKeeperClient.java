@@ -1,12 +1,17 @@
 package com.samoylenko.bookingservice.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samoylenko.bookingservice.config.PayKeeperProperties;
+import com.samoylenko.bookingservice.model.exception.PaymentProviderUnavailableException;
 import com.samoylenko.bookingservice.model.payment.InvoiceCreateDto;
 import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceInfo;
 import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceResponse;
 import com.samoylenko.bookingservice.model.payment.paykeeper.ServiceData;
 import com.samoylenko.bookingservice.model.payment.paykeeper.ServiceObject;
-import lombok.AllArgsConstructor;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -18,41 +23,73 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
-import static org.springframework.web.util.UriComponentsBuilder.fromHttpUrl;
 
 @Slf4j
 @Service
-@AllArgsConstructor
 public class PayKeeperClient {
     private final RestTemplate restTemplate;
-    private static final String baseUrl = "https://demo.paykeeper.ru";
-    private static final String login = "demo";
-    private static final String password = "demo";
-
     private final ObjectMapper mapper;
+    private final PayKeeperProperties properties;
+    private final HttpHeaders headers;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final ReentrantLock tokenLock = new ReentrantLock();
+    private volatile CachedToken cachedToken;
+
+    public PayKeeperClient(RestTemplate restTemplate, ObjectMapper mapper, PayKeeperProperties properties,
+                           CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.restTemplate = restTemplate;
+        this.mapper = mapper;
+        this.properties = properties;
+        this.headers = createHeaders(properties);
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
 
-    private HttpHeaders getHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        String auth = login + ":" + password;
-        String base64Creds = Base64.getEncoder().encodeToString(auth.getBytes());
-        headers.add("Authorization", "Basic " + base64Creds);
+    private static HttpHeaders createHeaders(PayKeeperProperties properties) {
+        var headers = new HttpHeaders();
+        headers.setBasicAuth(properties.getLogin(), properties.getPassword(), StandardCharsets.UTF_8);
         headers.add("Content-Type", APPLICATION_FORM_URLENCODED_VALUE);
-        return headers;
+        return HttpHeaders.readOnlyHttpHeaders(headers);
     }
 
+    /**
+     * Возвращает закешированный токен, а по истечении tokenTtl получает новый.
+     * Одновременные запросы за истекшим токеном ждут одного обращения к PayKeeper.
+     */
     public String getToken() {
-        var headers = getHeaders();
-        var url = fromHttpUrl(baseUrl).path("/info/settings/token/").toUriString();
+        var token = cachedToken;
+        if (token != null && token.isValid()) {
+            return token.value();
+        }
+        tokenLock.lock();
+        try {
+            token = cachedToken;
+            if (token != null && token.isValid()) {
+                return token.value();
+            }
+            var value = requestToken();
+            cachedToken = new CachedToken(value, Instant.now().plus(properties.getTokenTtl()));
+            log.debug("PayKeeper token has been refreshed");
+            return value;
+        } finally {
+            tokenLock.unlock();
+        }
+    }
+
+    private String requestToken() {
         var request = new HttpEntity<>(headers);
 
-        var response = restTemplate.exchange(url, HttpMethod.GET, request, Map.class);
+        var response = exchange(properties.getBaseUrl() + "/info/settings/token/", HttpMethod.GET, request, Map.class);
 
         if (response.getBody() != null && response.getBody().containsKey("token")) {
             return response.getBody().get("token").toString();
@@ -78,8 +115,6 @@ public class PayKeeperClient {
         var formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
         try {
             var token = getToken();
-            var headers = getHeaders();
-            var url = fromHttpUrl(baseUrl).path("/change/invoice/preview/").toUriString();
             var serviceDataStr = mapper.writeValueAsString(serviceData);
             var body = new LinkedMultiValueMap<String, String>();
             body.add("pay_amount", data.getCost().toString());
@@ -92,7 +127,7 @@ public class PayKeeperClient {
             body.add("token", token);
 
             var request = new HttpEntity<>(body, headers);
-            var response = restTemplate.exchange(url, HttpMethod.POST, request, Map.class);
+            var response = exchange(properties.getBaseUrl() + "/change/invoice/preview/", HttpMethod.POST, request, Map.class);
 
             Assert.notNull(response, "Not found response");
             Assert.notNull(response.getBody(), "Not found response body");
@@ -102,21 +137,19 @@ public class PayKeeperClient {
             Assert.notNull(invoiceUrl, "Not found invoice url");
 
             return new InvoiceResponse(invoiceId, invoiceUrl);
+        } catch (PaymentProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
+            // токен мог быть отозван раньше срока, следующий вызов получит новый
+            cachedToken = null;
             log.error("Error creating invoice", e);
             throw new RuntimeException(e);
         }
     }
 
     public String getPaymentInfo(String id) {
-        HttpHeaders headers = getHeaders();
-        String url = fromHttpUrl(baseUrl)
-                .path("/info/payments/byid/")
-                .queryParam("id", id)
-                .toUriString();
-
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(headers);
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
+        ResponseEntity<String> response = exchange(properties.getBaseUrl() + "/info/payments/byid/?id={id}", HttpMethod.GET, request, String.class, id);
 
 
         var responseBody = response.getBody();
@@ -129,14 +162,8 @@ public class PayKeeperClient {
     }
 
     public InvoiceInfo getInvoiceInfo(String id) {
-        var headers = getHeaders();
-        var url = fromHttpUrl(baseUrl)
-                .path("/info/invoice/byid/")
-                .queryParam("id", id)
-                .toUriString();
-
         var request = new HttpEntity<>(headers);
-        var response = restTemplate.exchange(url, HttpMethod.GET, request, InvoiceInfo.class);
+        var response = exchange(properties.getBaseUrl() + "/info/invoice/byid/?id={id}", HttpMethod.GET, request, InvoiceInfo.class, id);
 
         if (response.getBody() != null) {
             return response.getBody();
@@ -144,4 +171,23 @@ public class PayKeeperClient {
             throw new RuntimeException();
         }
     }
+
+    /**
+     * Каждый HTTP-вызов проходит через ограничение одновременных вызовов и автоматический выключатель.
+     * Пока выключатель разомкнут, вызов сразу завершается PaymentProviderUnavailableException.
+     */
+    private <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> request, Class<T> responseType, Object... uriVariables) {
+        try {
+            return bulkhead.executeSupplier(() -> circuitBreaker.executeSupplier(
+                    () -> restTemplate.exchange(url, method, request, responseType, uriVariables)));
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw new PaymentProviderUnavailableException(e);
+        }
+    }
+
+    private record CachedToken(String value, Instant expiresAt) {
+        boolean isValid() {
+            return Instant.now().isBefore(expiresAt);
+        }
+    }
 }
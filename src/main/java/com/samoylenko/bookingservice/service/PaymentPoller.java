@@ -0,0 +1,104 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.config.ServiceProperties;
+import com.samoylenko.bookingservice.model.exception.PaymentProviderUnavailableException;
+import com.samoylenko.bookingservice.model.payment.InvoiceCheckResult;
+import com.samoylenko.bookingservice.model.payment.PaymentStatus;
+import com.samoylenko.bookingservice.model.payment.PendingInvoice;
+import com.samoylenko.bookingservice.service.utils.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Опрашивает PayKeeper по всем ожидающим оплаты счетам. Запросы выполняются в виртуальных потоках
+ * с ограничением числа одновременных вызовов и частоты запросов, результаты применяются пачками.
+ */
+@Slf4j
+@Component
+public class PaymentPoller {
+    private final PaymentService paymentService;
+    private final ServiceProperties properties;
+    private final TokenBucket rateLimiter;
+
+    public PaymentPoller(PaymentService paymentService, ServiceProperties properties) {
+        this.paymentService = paymentService;
+        this.properties = properties;
+        this.rateLimiter = new TokenBucket(properties.getPaymentPollingRateLimit(), properties.getPaymentPollingRateLimit());
+    }
+
+    public int pollPendingInvoices() {
+        var pending = paymentService.getPendingInvoices();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        var start = System.nanoTime();
+        var permits = new Semaphore(properties.getPaymentPollingConcurrency());
+        var changed = new ArrayList<InvoiceCheckResult>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<InvoiceCheckResult>>(pending.size());
+            for (var invoice : pending) {
+                futures.add(executor.submit(() -> check(invoice, permits)));
+            }
+            for (var future : futures) {
+                var result = getResult(future);
+                if (result != null && result.status() != PaymentStatus.PENDING) {
+                    changed.add(result);
+                }
+            }
+        }
+        applyInBatches(changed);
+        log.info("Checked {} invoices in {} ms, {} changed", pending.size(), NANOSECONDS.toMillis(System.nanoTime() - start), changed.size());
+        return changed.size();
+    }
+
+    private InvoiceCheckResult check(PendingInvoice invoice, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            rateLimiter.acquire();
+            return paymentService.checkInvoice(invoice);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (PaymentProviderUnavailableException e) {
+            log.debug("PayKeeper is unavailable, invoice {} is skipped", invoice.invoiceId());
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to check invoice {} of payment {}", invoice.invoiceId(), invoice.paymentId(), e);
+            return null;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private InvoiceCheckResult getResult(Future<InvoiceCheckResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.error("Failed to check invoice", e.getCause());
+            return null;
+        }
+    }
+
+    private void applyInBatches(List<InvoiceCheckResult> results) {
+        var batchSize = properties.getPaymentPollingBatchSize();
+        for (int from = 0; from < results.size(); from += batchSize) {
+            var batch = results.subList(from, Math.min(from + batchSize, results.size()));
+            try {
+                paymentService.applyInvoiceResults(batch);
+            } catch (Exception e) {
+                log.error("Failed to apply results of {} invoices", batch.size(), e);
+            }
+        }
+    }
+}
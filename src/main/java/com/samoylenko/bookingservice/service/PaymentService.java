@@ -1,30 +1,37 @@
 package com.samoylenko.bookingservice.service;
 
 import com.samoylenko.bookingservice.config.ServiceProperties;
-import com.samoylenko.bookingservice.model.discount.DiscountDto;
-import com.samoylenko.bookingservice.model.discount.DiscountRequest;
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
+import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.exception.EntityCreateException;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
+import com.samoylenko.bookingservice.model.exception.InvalidSignatureException;
+import com.samoylenko.bookingservice.model.exception.PaymentProviderUnavailableException;
 import com.samoylenko.bookingservice.model.payment.*;
-import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceDto;
+import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceResponse;
+import com.samoylenko.bookingservice.model.payment.paykeeper.PaymentNotification;
 import com.samoylenko.bookingservice.repository.BookingRepository;
 import com.samoylenko.bookingservice.repository.PaymentRepository;
 import com.samoylenko.bookingservice.service.discount.DiscountHandler;
 import com.samoylenko.bookingservice.service.discount.DiscountManager;
-import jakarta.annotation.PostConstruct;
+import com.samoylenko.bookingservice.service.mapper.PaymentMapper;
+import com.samoylenko.bookingservice.service.utils.PayKeeperSignature;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 import org.springframework.validation.annotation.Validated;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 
+import static com.samoylenko.bookingservice.model.exception.EntityType.BOOKING;
 import static com.samoylenko.bookingservice.model.exception.EntityType.PAYMENT;
 import static com.samoylenko.bookingservice.model.payment.PaymentStatus.PAID;
 import static com.samoylenko.bookingservice.model.payment.PaymentStatus.PENDING;
@@ -40,50 +47,24 @@ import static java.time.Instant.now;
 public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final BookingRepository bookingRepository;
-    private final ModelMapper mapper;
+    private final PaymentMapper mapper;
     private final DiscountHandler discountManager;
     private final PayKeeperClient payKeeper;
     private final ServiceProperties properties;
     private final PromotionService promotionService;
-
-    @PostConstruct
-    public void init() {
-        mapper.createTypeMap(PaymentEntity.class, PaymentDto.class)
-                .addMappings(mapper -> mapper.map(src -> src.getBooking().getId(), PaymentDto::setBookingId));
-
-        mapper.createTypeMap(PaymentEntity.class, InvoiceDto.class)
-                .addMappings(mapper -> mapper.map(PaymentEntity::getInvoiceId, InvoiceDto::setInvoiceId))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getInvoiceUrl, InvoiceDto::setInvoiceUrl))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getLatestPaymentTime, InvoiceDto::setLatestPaymentTime));
-
-
-        mapper.createTypeMap(PaymentEntity.class, DiscountDto.class)
-                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountType, DiscountDto::setType))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountStatus, DiscountDto::setStatus))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountCode, DiscountDto::setCode))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getPriceForOne, DiscountDto::setPriceForOne))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getTotalCost, DiscountDto::setTotalCost))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getQuantity, DiscountDto::setQuantity))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountPercent, DiscountDto::setDiscountPercent))
-                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountAbsolute, DiscountDto::setDiscountAbsolute));
-
-        mapper.createTypeMap(PaymentCreateDto.class, DiscountRequest.class)
-                .addMappings(mapper -> mapper.map(PaymentCreateDto::getVoucher, DiscountRequest::setCode))
-                .addMappings(mapper -> mapper.map(PaymentCreateDto::getQuantity, DiscountRequest::setQuantity))
-                .addMappings(mapper -> mapper.map(PaymentCreateDto::getRouteId, DiscountRequest::setRouteId))
-                .addMappings(mapper -> mapper.map(PaymentCreateDto::getPriceForOne, DiscountRequest::setPrice))
-                .addMappings(mapper -> mapper.map(src -> src.getClient().getPhone(), DiscountRequest::setPhone));
-
-    }
+    private final PayKeeperSignature signature;
+    private final TransactionTemplate transactionTemplate;
 
     public PaymentService(
             PaymentRepository paymentRepository,
-            ModelMapper mapper,
+            PaymentMapper mapper,
             DiscountManager discountManager,
             PayKeeperClient payKeeper,
             ServiceProperties properties,
             BookingRepository bookingRepository,
-            PromotionService promotionService
+            PromotionService promotionService,
+            PayKeeperSignature signature,
+            TransactionTemplate transactionTemplate
     ) {
         this.paymentRepository = paymentRepository;
         this.mapper = mapper;
@@ -92,16 +73,39 @@ public class PaymentService {
         this.properties = properties;
         this.bookingRepository = bookingRepository;
         this.promotionService = promotionService;
+        this.signature = signature;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
+    /**
+     * Создает платежный документ и выставляет по нему счет. Запрос к PayKeeper выполняется вне транзакции.
+     */
     public PaymentDto createPaymentDocument(@Valid PaymentCreateDto createDto) {
+        var payment = transactionTemplate.execute(status -> savePaymentIntent(createDto));
+        try {
+            return issueInvoice(payment.getId());
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> cancelPaymentIntent(payment.getId()));
+            throw e;
+        }
+    }
+
+    /**
+     * Первая фаза выставления счета: сохраняет платеж без счета и привязывает его к бронированию.
+     */
+    @Transactional
+    public PaymentDto createPaymentIntent(@Valid PaymentCreateDto createDto) {
+        return savePaymentIntent(createDto);
+    }
+
+    private PaymentDto savePaymentIntent(PaymentCreateDto createDto) {
         try {
             log.info("Attempting to create payment document: {}", createDto);
-            var discountRequest = mapper.map(createDto, DiscountRequest.class);
+            var discountRequest = mapper.toDiscountRequest(createDto);
             log.debug("Attempting to apply discount: {}", discountRequest);
             var discount = discountManager.applyDiscount(discountRequest);
-            var booking = bookingRepository.getReferenceById(createDto.getBookingId());
+            var booking = bookingRepository.findById(createDto.getBookingId())
+                    .orElseThrow(() -> new EntityNotFoundException(BOOKING, createDto.getBookingId()));
             log.debug("Applying discount: {}", discount);
             var paymentBuilder = PaymentEntity.builder()
                     .status(PENDING)
@@ -116,23 +120,7 @@ public class PaymentService {
                     .discountStatus(discount.getStatus());
 
             if (discount.getTotalCost().compareTo(ZERO) > 0) {
-                var clientName = "%s %s".formatted(createDto.getClient().getLastName(), createDto.getClient().getFirstName());
-                var invoiceCreateDto = InvoiceCreateDto.builder()
-                        .clientId(clientName)
-                        .orderId(createDto.getBookingId())
-                        .clientPhone(createDto.getClient().getPhone())
-                        .clientEmail(createDto.getClient().getEmail())
-                        .quantity(createDto.getQuantity())
-                        .price(discount.getPriceForOne())
-                        .cost(discount.getTotalCost())
-                        .expiry(createDto.getExpiryTime())
-                        .build();
-                log.debug("Attempting to create invoice: {}", invoiceCreateDto);
-                var invoiceResponse = payKeeper.createInvoice(invoiceCreateDto);
-                log.debug("Invoice created: {}", invoiceResponse);
                 paymentBuilder.latestPaymentTime(createDto.getExpiryTime());
-                paymentBuilder.invoiceId(invoiceResponse.id());
-                paymentBuilder.invoiceUrl(invoiceResponse.url());
             } else {
                 paymentBuilder.status(PAID);
             }
@@ -141,7 +129,9 @@ public class PaymentService {
                 paymentBuilder.voucher(voucher);
             }
             var payment = paymentRepository.save(paymentBuilder.build());
-            var paymentDto = toPaymentDto(payment);
+            booking.setPayment(payment);
+            bookingRepository.save(booking);
+            var paymentDto = mapper.toDto(payment);
             log.info("Payment document has been created: {}", paymentDto);
             return paymentDto;
         } catch (Exception e) {
@@ -149,40 +139,169 @@ public class PaymentService {
         }
     }
 
-    public PaymentStatus checkPaymentDocument(@NotBlank String paymentId) {
-        var payment = getPaymentEntity(paymentId);
-        var oldStatus = payment.getStatus();
-        Assert.hasText(payment.getInvoiceId(), "Invoice id has not been found for payment " + paymentId);
-        var invoice = payKeeper.getInvoiceInfo(payment.getInvoiceId());
-
-        if (invoice.getStatus().equals("paid")) {
-            Assert.isTrue(payment.getBooking().getId().equals(invoice.getOrderId()),
-                    "Invoice id has not been matched for invoice: %s, actual: %s"
-                            .formatted(payment.getInvoiceId(), invoice.getOrderId()));
-            payment.setStatus(PAID);
-            paymentRepository.save(payment);
-            log.info("Updated status of payment {} from {} to {}", paymentId, oldStatus, payment.getStatus());
-        } else if (payment.getLatestPaymentTime().isBefore(now())) {
-            payment.setStatus(PaymentStatus.EXPIRED);
-            paymentRepository.save(payment);
-            log.info("Updated status of payment {} from {} to {}", paymentId, oldStatus, payment.getStatus());
+    /**
+     * Вторая фаза выставления счета: запрашивает счет в PayKeeper без открытой транзакции
+     * и сохраняет его отдельной короткой транзакцией. Если процесс упал между фазами, повторный
+     * вызов выставит счет заново, а уже сохраненный счет не перезаписывается.
+     */
+    public PaymentDto issueInvoice(@NotBlank String paymentId) {
+        var invoiceCreateDto = transactionTemplate.execute(status -> toInvoiceCreateDto(getPaymentEntity(paymentId)));
+        if (invoiceCreateDto != null) {
+            log.debug("Attempting to create invoice: {}", invoiceCreateDto);
+            InvoiceResponse invoiceResponse;
+            try {
+                invoiceResponse = payKeeper.createInvoice(invoiceCreateDto);
+            } catch (PaymentProviderUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new EntityCreateException(PAYMENT, e);
+            }
+            log.debug("Invoice created: {}", invoiceResponse);
+            var updated = transactionTemplate.execute(status ->
+                    paymentRepository.setInvoice(paymentId, invoiceResponse.id(), invoiceResponse.url(), now()));
+            if (updated == null || updated == 0) {
+                log.warn("Invoice {} has not been stored, payment {} already has an invoice", invoiceResponse.id(), paymentId);
+            }
+        }
+        return getPaymentById(paymentId);
+    }
+
+    private InvoiceCreateDto toInvoiceCreateDto(PaymentEntity payment) {
+        if (payment.getStatus() != PENDING || payment.getInvoiceId() != null) {
+            return null;
         }
-        return payment.getStatus();
+        var booking = payment.getBooking();
+        var client = booking.getClient();
+        return InvoiceCreateDto.builder()
+                .clientId("%s %s".formatted(client.getLastName(), client.getFirstName()))
+                .orderId(booking.getId())
+                .clientPhone(client.getPhone())
+                .clientEmail(client.getEmail())
+                .quantity(payment.getQuantity())
+                .price(payment.getPriceForOne())
+                .cost(payment.getTotalCost())
+                .expiry(payment.getLatestPaymentTime())
+                .build();
     }
 
+    /**
+     * Отменяет платеж, по которому не удалось выставить счет: отвязывает его от бронирования,
+     * возвращает бронирование в ACTIVE, удаляет платеж и отменяет применение ваучера.
+     * Платеж со счетом или уже не ожидающий оплаты не изменяется.
+     */
+    @Transactional
+    public void cancelPaymentIntent(@NotBlank String paymentId) {
+        var payment = paymentRepository.findById(paymentId).orElse(null);
+        if (payment == null || payment.getStatus() != PENDING || payment.getInvoiceId() != null) {
+            return;
+        }
+        var booking = payment.getBooking();
+        if (booking != null) {
+            booking.setPayment(null);
+            if (booking.getStatus() == BookingStatus.WAITING_FOR_PAYMENT) {
+                booking.setStatus(BookingStatus.ACTIVE);
+            }
+            bookingRepository.save(booking);
+            // иначе удаление платежа каскадом удалит бронирование
+            payment.setBooking(null);
+        }
+        paymentRepository.delete(payment);
+        releaseDiscount(payment);
+        log.info("Payment intent {} has been canceled", paymentId);
+    }
+
+    /**
+     * Отменяет применение ваучера платежа, если ваучер был применен.
+     * Вызывается последним: отмена очищает контекст персистентности.
+     */
+    public void releaseDiscount(PaymentEntity payment) {
+        if (payment.getVoucher() != null && payment.getDiscountStatus() == DiscountStatus.ACTIVE) {
+            promotionService.releaseVoucher(payment.getDiscountCode());
+        }
+    }
+
+    public List<PendingInvoice> getPendingInvoices() {
+        return paymentRepository.findPendingInvoices(BookingStatus.WAITING_FOR_PAYMENT, PENDING);
+    }
+
+    /**
+     * Запрашивает статус счета в PayKeeper, не обращаясь к БД.
+     */
+    public InvoiceCheckResult checkInvoice(@NotNull PendingInvoice pending) {
+        var invoice = payKeeper.getInvoiceInfo(pending.invoiceId());
+        if (invoice != null && "paid".equals(invoice.getStatus())) {
+            if (!pending.bookingId().equals(invoice.getOrderId())) {
+                log.error("Invoice id has not been matched for invoice: {}, actual: {}", pending.invoiceId(), invoice.getOrderId());
+                return new InvoiceCheckResult(pending, PENDING);
+            }
+            return new InvoiceCheckResult(pending, PAID);
+        }
+        if (pending.latestPaymentTime() != null && pending.latestPaymentTime().isBefore(now())) {
+            return new InvoiceCheckResult(pending, PaymentStatus.EXPIRED);
+        }
+        return new InvoiceCheckResult(pending, PENDING);
+    }
+
+    /**
+     * Применяет результаты опроса счетов в одной транзакции: оплаченные платежи и их бронирования
+     * переводятся в PAID, просроченные платежи в EXPIRED. Уже обработанные записи не изменяются.
+     */
+    @Transactional
+    public void applyInvoiceResults(@NotNull List<InvoiceCheckResult> results) {
+        var paid = paymentIds(results, PAID);
+        var expired = paymentIds(results, PaymentStatus.EXPIRED);
+        var now = now();
+        if (!paid.isEmpty()) {
+            markPaid(paid, now);
+        }
+        if (!expired.isEmpty()) {
+            var payments = paymentRepository.updateStatus(expired, PENDING, PaymentStatus.EXPIRED, now);
+            log.info("Updated status of {} payments to {}", payments, PaymentStatus.EXPIRED);
+        }
+    }
+
+    /**
+     * Обрабатывает уведомление PayKeeper об оплате. Повторное уведомление по уже оплаченному
+     * платежу ничего не меняет и получает тот же ответ, чтобы PayKeeper перестал его присылать.
+     */
+    @Transactional
+    public String confirmPayment(@NotNull PaymentNotification notification) {
+        if (!signature.isValid(notification)) {
+            throw new InvalidSignatureException(notification.getId());
+        }
+        var booking = bookingRepository.findById(notification.getOrderId())
+                .orElseThrow(() -> new EntityNotFoundException(BOOKING, notification.getOrderId()));
+        var payment = booking.getPayment();
+        if (payment == null) {
+            throw new EntityNotFoundException(PAYMENT, notification.getOrderId());
+        }
+        Assert.isTrue(payment.getTotalCost().compareTo(notification.getSum()) == 0,
+                "Payment sum has not been matched for payment %s: expected %s, actual %s"
+                        .formatted(payment.getId(), payment.getTotalCost(), notification.getSum()));
+        if (payment.getStatus() == PENDING) {
+            markPaid(List.of(payment.getId()), now());
+        } else if (payment.getStatus() != PAID) {
+            log.warn("Received payment notification {} for payment {} in status {}", notification.getId(), payment.getId(), payment.getStatus());
+        }
+        return signature.response(notification.getId());
+    }
+
+    private void markPaid(List<String> paymentIds, Instant now) {
+        var payments = paymentRepository.updateStatus(paymentIds, PENDING, PAID, now);
+        var bookings = bookingRepository.updateStatusByPayments(paymentIds, BookingStatus.WAITING_FOR_PAYMENT, BookingStatus.PAID, now);
+        log.info("Updated status of {} payments and {} bookings to {}", payments, bookings, PAID);
+    }
 
-    private PaymentDto toPaymentDto(PaymentEntity entity) {
-        var dto = mapper.map(entity, PaymentDto.class);
-        var invoiceDto = mapper.map(entity, InvoiceDto.class);
-        var discountDto = mapper.map(entity, DiscountDto.class);
-        dto.setInvoice(invoiceDto);
-        dto.setDiscount(discountDto);
-        return dto;
+    private List<String> paymentIds(List<InvoiceCheckResult> results, PaymentStatus status) {
+        return results.stream()
+                .filter(result -> result.status() == status)
+                .map(result -> result.invoice().paymentId())
+                .toList();
     }
 
     public PaymentDto getPaymentById(@NotBlank String id) {
         var payment = getPaymentEntity(id);
-        return toPaymentDto(payment);
+        return mapper.toDto(payment);
     }
 
     private PaymentEntity getPaymentEntity(String id) {
@@ -200,7 +319,7 @@ public class PaymentService {
         var spec = PaymentSpecification.withStatus(request.getStatus());
         return paymentRepository
                 .findAll(spec, request.getPageRequest())
-                .map(element -> mapper.map(element, PaymentDto.class));
+                .map(mapper::toDto);
     }
 
     public void setStatus(String id, PaymentStatus paymentStatus) {
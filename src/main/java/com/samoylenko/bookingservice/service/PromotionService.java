@@ -1,34 +1,65 @@
 package com.samoylenko.bookingservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.samoylenko.bookingservice.config.ServiceProperties;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
+import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.exception.EntityCreateException;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.model.voucher.*;
 import com.samoylenko.bookingservice.repository.VoucherRepository;
+import com.samoylenko.bookingservice.service.utils.AfterCommit;
 import com.samoylenko.bookingservice.service.utils.CodeGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import static com.samoylenko.bookingservice.model.exception.EntityType.VOUCHER;
 
 @Slf4j
 @Service
 @Validated
-@AllArgsConstructor
 public class PromotionService {
+    static final String VOUCHER_CODES = "voucherCodes";
+
     private final VoucherRepository voucherRepository;
     private final RouteService routeService;
     private final CodeGenerator codeGenerator;
     private final ModelMapper modelMapper;
+    private final VoucherCodeFilter codeFilter;
+    // ваучеры по коду, пустое значение - код не найден: перебор кодов из формы оплаты не доходит до БД
+    private final Cache<String, Optional<VoucherDto>> vouchersByCode;
+
+    public PromotionService(VoucherRepository voucherRepository, RouteService routeService, CodeGenerator codeGenerator,
+                            ModelMapper modelMapper, VoucherCodeFilter codeFilter, ServiceProperties properties,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.voucherRepository = voucherRepository;
+        this.routeService = routeService;
+        this.codeGenerator = codeGenerator;
+        this.modelMapper = modelMapper;
+        this.codeFilter = codeFilter;
+        this.vouchersByCode = Caffeine.newBuilder()
+                .maximumSize(properties.getVoucherCodeCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getVoucherCodeCacheTtl()))
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, vouchersByCode, VOUCHER_CODES));
+    }
 
     public VoucherDto createVoucher(@Valid VoucherCreateDto createDto) {
         log.info("Creating voucher: {}", createDto);
@@ -49,6 +80,8 @@ public class PromotionService {
                     .discountPercent(createDto.getDiscountPercent())
                     .count(0)
                     .build());
+            codeFilter.add(entity.getCode());
+            evictCode(entity.getCode());
 
             return modelMapper.map(entity, VoucherDto.class);
         } catch (Exception e) {
@@ -61,6 +94,7 @@ public class PromotionService {
         var voucher = getEntityById(voucherId);
         voucher.setStatus(VoucherStatus.EXPIRED);
         voucherRepository.save(voucher);
+        evictCode(voucher.getCode());
         log.info("Voucher {} has been set as expired", voucherId);
     }
 
@@ -94,23 +128,72 @@ public class PromotionService {
     }
 
 
-    public void applyVoucher(DiscountRequest discountRequest) {
-        var voucher = voucherRepository.findByCode(discountRequest.getCode())
-                .orElseThrow(() -> new EntityNotFoundException(VOUCHER, discountRequest.getCode()));
-        voucher.setCount(voucher.getCount() + 1);
-        if (voucher.getType().equals(DiscountType.CERTIFICATE)) {
-            voucher.setStatus(VoucherStatus.APPLIED);
+    /**
+     * Применяет ваучер одним условным update без чтения сущности.
+     * Если ваучер уже применен или истек, ни одна строка не обновится и вернется EXPIRED или ALREADY_APPLIED,
+     * иначе ACTIVE.
+     */
+    @Transactional
+    public DiscountStatus applyVoucher(DiscountRequest discountRequest) {
+        var code = discountRequest.getCode();
+        var now = Instant.now();
+        var updated = voucherRepository.redeem(code, DiscountType.CERTIFICATE,
+                VoucherStatus.ACTIVE, VoucherStatus.APPLIED, now);
+        evictCode(code);
+        if (updated == 0) {
+            var voucher = voucherRepository.findByCode(code)
+                    .orElseThrow(() -> new EntityNotFoundException(VOUCHER, code));
+            var expired = voucher.getStatus() == VoucherStatus.EXPIRED ||
+                          voucher.getExpiredAt() != null && !voucher.getExpiredAt().isAfter(now);
+            log.info("Voucher {} has not been applied: {}", code, expired ? "expired" : voucher.getStatus());
+            return expired ? DiscountStatus.EXPIRED : DiscountStatus.ALREADY_APPlIED;
+        }
+        return DiscountStatus.ACTIVE;
+    }
+
+    /**
+     * Отменяет одно применение ваучера: уменьшает счетчик, сертификат снова делает активным.
+     */
+    @Transactional
+    public void releaseVoucher(@NotBlank String code) {
+        var updated = voucherRepository.release(code, DiscountType.CERTIFICATE,
+                VoucherStatus.ACTIVE, VoucherStatus.APPLIED, Instant.now());
+        evictCode(code);
+        if (updated == 0) {
+            log.warn("Voucher {} has not been released: it is not applied", code);
+        } else {
+            log.info("Voucher {} has been released", code);
         }
-        voucherRepository.save(voucher);
     }
 
+    /**
+     * Ваучер по коду из кэша. Одновременные запросы одного кода загружаются из БД один раз.
+     */
     public VoucherDto getVoucherByCode(String code) {
         if (code == null) return null;
-        return voucherRepository.findByCode(code)
-                .map(voucher -> modelMapper.map(voucher, VoucherDto.class))
+        return vouchersByCode.get(code, key -> voucherRepository.findByCode(key)
+                        .map(voucher -> modelMapper.map(voucher, VoucherDto.class)))
                 .orElse(null);
     }
 
+    /**
+     * Очищает кэш кодов целиком. Только для тестов, которые удаляют ваучеры напрямую через репозиторий.
+     */
+    void clearVoucherCodes() {
+        vouchersByCode.invalidateAll();
+    }
+
+    /**
+     * Сбрасывает коды, записанные в БД в обход сервиса, в том числе закэшированные как несуществующие.
+     */
+    public void evictVoucherCodes(Collection<String> codes) {
+        AfterCommit.run(() -> vouchersByCode.invalidateAll(codes));
+    }
+
+    private void evictCode(String code) {
+        AfterCommit.run(() -> vouchersByCode.invalidate(code));
+    }
+
     public VoucherEntity getEntityByCode(@NotBlank String code) {
         return voucherRepository.findByCode(code)
                 .orElseThrow(() -> new EntityNotFoundException(VOUCHER, code));
@@ -1,5 +1,8 @@
 package com.samoylenko.bookingservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.samoylenko.bookingservice.config.ServiceProperties;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.model.route.RouteCreateDto;
 import com.samoylenko.bookingservice.model.route.RouteDto;
@@ -7,13 +10,13 @@ import com.samoylenko.bookingservice.model.route.RouteEntity;
 import com.samoylenko.bookingservice.model.route.RouteUpdateDto;
 import com.samoylenko.bookingservice.repository.RouteRepository;
 import jakarta.validation.Valid;
-import lombok.AllArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -21,10 +24,26 @@ import static com.samoylenko.bookingservice.model.exception.EntityType.ROUTE;
 
 @Service
 @Validated
-@AllArgsConstructor
 public class RouteService {
+    private static final String ROUTES = "routes";
+
     private final RouteRepository routeRepository;
     private final ModelMapper modelMapper;
+    private final WalkCatalogCache catalogCache;
+    // неизменяемый список неудаленных маршрутов, сбрасывается при каждом изменении маршрутов
+    // и по истечении ttl, чтобы подхватить изменения с других инстансов
+    private final Cache<String, List<RouteDto>> routes;
+
+    public RouteService(RouteRepository routeRepository, ModelMapper modelMapper, WalkCatalogCache catalogCache,
+                        ServiceProperties properties) {
+        this.routeRepository = routeRepository;
+        this.modelMapper = modelMapper;
+        this.catalogCache = catalogCache;
+        this.routes = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(properties.getRouteCacheTtl()))
+                .build();
+    }
 
     public void checkExists(String id) {
         if (!StringUtils.hasText(id)) return;
@@ -35,6 +54,7 @@ public class RouteService {
     public RouteDto createRoute(@Valid RouteCreateDto routeDto) {
         var routeEntity = modelMapper.map(routeDto, RouteEntity.class);
         var saved = routeRepository.save(routeEntity);
+        evictRoutes();
         return modelMapper.map(saved, RouteDto.class);
     }
 
@@ -54,6 +74,8 @@ public class RouteService {
         updateIfNotNull(route.getDescription(), existingRoute::setDescription);
         updateIfNotNull(route.getPriceForOne(), existingRoute::setPriceForOne);
         RouteEntity updatedRoute = routeRepository.save(existingRoute);
+        evictRoutes();
+        catalogCache.evictAll();
         return modelMapper.map(updatedRoute, RouteDto.class);
     }
 
@@ -68,13 +90,26 @@ public class RouteService {
                 .orElseThrow(() -> new EntityNotFoundException(ROUTE, id));
         found.setDeleted(true);
         routeRepository.save(found);
+        evictRoutes();
+        catalogCache.evictAll();
     }
 
     public List<RouteDto> getAllRoutes() {
+        return routes.get(ROUTES, key -> loadRoutes());
+    }
+
+    /**
+     * Сбрасывает список маршрутов, следующий запрос перечитает его из БД.
+     * Сброс во время загрузки дожидается ее и удаляет результат: снимок, прочитанный до изменения маршрута,
+     * не переживет его сброс.
+     */
+    public void evictRoutes() {
+        routes.invalidate(ROUTES);
+    }
+
+    private List<RouteDto> loadRoutes() {
         var sort = Sort.by(Sort.Direction.DESC, "createdDate");
-        var routes = routeRepository.findAll(sort);
-        return routes.stream()
-                .filter(route -> !route.isDeleted())
+        return routeRepository.findAllByDeletedFalse(sort).stream()
                 .map(route -> modelMapper.map(route, RouteDto.class))
                 .toList();
     }
@@ -1,22 +1,24 @@
 package com.samoylenko.bookingservice.service;
 
 import com.samoylenko.bookingservice.config.ServiceProperties;
-import com.samoylenko.bookingservice.model.booking.BookingRequest;
-import com.samoylenko.bookingservice.model.booking.BookingStatus;
-import com.samoylenko.bookingservice.model.payment.PaymentStatus;
 import com.samoylenko.bookingservice.model.voucher.VoucherRequest;
 import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
-import com.samoylenko.bookingservice.model.walk.WalkRequest;
+import com.samoylenko.bookingservice.model.walk.WalkKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import static com.samoylenko.bookingservice.model.walk.WalkStatus.*;
 import static java.time.Instant.now;
 import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 @Slf4j
@@ -25,68 +27,66 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 public class Scheduler {
     private final WalkService walkService;
     private final BookingService bookingService;
-    private final PaymentService paymentService;
+    private final PaymentPoller paymentPoller;
     private final ServiceProperties properties;
     private final PromotionService promotionService;
+    private final MeterRegistry meterRegistry;
     private final String ACTOR = "SYSTEM_SCHEDULER";
+    private static final int SCAN_BATCH_SIZE = 500;
 
     @Scheduled(cron = "${service.checkWalkToCompleteBooking}")
     public void scanWalksToCompleteBookings() {
         log.info("Scanning walks with status: {}", BOOKING_IN_PROGRESS);
-        var walkPage = walkService.getWalksForUser(WalkRequest.builder()
-                .status(BOOKING_IN_PROGRESS)
-                .startBefore(now().plus(properties.getWalkInBookingStatusDeadLine(), MINUTES))
-                .build());
-        walkPage.get().forEach(walk -> {
-            walkService.setStatus(walk.getId(), BOOKING_FINISHED);
-            var bookings = bookingService.getBookingList(BookingRequest.of()
-                    .withWalkId(walk.getId())
-                    .withStatus(List.of(BookingStatus.PAID)));
-            bookings.forEach(booking -> {
-                bookingService.setStatus(booking.getId(), BookingStatus.COMPLETED, ACTOR);
-            });
-        });
+        var startBefore = now().plus(properties.getWalkInBookingStatusDeadLine(), MINUTES);
+        scanWalks("complete-bookings",
+                after -> walkService.getWalksToCloseBooking(startBefore, after, SCAN_BATCH_SIZE),
+                walkIds -> walkService.closeBooking(walkIds, ACTOR));
     }
 
     @Scheduled(cron = "${service.checkWalksToFinish}")
     public void scanWalksToFinish() {
         log.info("Scanning walks with status: {}", BOOKING_FINISHED);
-        var walkPage = walkService.getWalksForUser(WalkRequest.builder()
-                .status(BOOKING_FINISHED)
-                .endAfter(now())
-                .build());
-        walkPage.get().forEach(walk -> {
-            walkService.setStatus(walk.getId(), FINISHED);
-        });
+        var endAfter = now();
+        scanWalks("finish",
+                after -> walkService.getWalksToFinish(endAfter, after, SCAN_BATCH_SIZE),
+                walkService::finish);
     }
 
-    @Scheduled(fixedDelayString = "${service.bookingCheckPeriod:5}", timeUnit = SECONDS)
-    public void checkBookings() {
-        var bookingRequest = BookingRequest.of().withStatus(List.of(BookingStatus.ACTIVE, BookingStatus.WAITING_FOR_PAYMENT));
-        var bookings = bookingService.getBookingList(bookingRequest);
-        for (var booking : bookings) {
-            if (booking.getEndTime() == null || booking.getEndTime().isBefore(now())) {
-                bookingService.setStatus(booking.getId(), BookingStatus.EXPIRED, ACTOR);
-                walkService.releasePlaces(booking.getWalkId(), booking.getNumberOfPeople());
-                if (booking.getStatus().equals(BookingStatus.WAITING_FOR_PAYMENT)) {
-                    var payment = bookingService.getBookingForUser(booking.getId()).getPayment();
-                    paymentService.setStatus(payment.getId(), PaymentStatus.EXPIRED);
-                }
+    /**
+     * Проходит все подходящие прогулки страницами по (startTime, id) и переводит каждую страницу одним запросом.
+     */
+    private void scanWalks(String scan, Function<WalkKey, List<WalkKey>> nextPage, ToIntFunction<List<String>> transition) {
+        var sample = Timer.start(meterRegistry);
+        var processed = 0;
+        var after = WalkKey.FIRST;
+        List<WalkKey> page;
+        do {
+            page = nextPage.apply(after);
+            if (page.isEmpty()) {
+                break;
             }
+            processed += transition.applyAsInt(page.stream().map(WalkKey::id).toList());
+            after = page.get(page.size() - 1);
+        } while (page.size() == SCAN_BATCH_SIZE);
+        var duration = sample.stop(meterRegistry.timer("scheduler.walk.scan", "scan", scan));
+        meterRegistry.counter("scheduler.walk.scan.walks", "scan", scan).increment(processed);
+        log.info("Scan {} moved {} walks in {} ms", scan, processed, NANOSECONDS.toMillis(duration));
+    }
+
+    /**
+     * Страховочная проверка: основное истечение бронирований выполняет {@link BookingExpiryQueue}.
+     */
+    @Scheduled(fixedDelayString = "${service.bookingCheckPeriod:60}", timeUnit = SECONDS)
+    public void checkBookings() {
+        var expired = bookingService.expireOverdueBookings(ACTOR);
+        if (expired > 0) {
+            log.warn("Expired {} bookings missed by the expiry queue", expired);
         }
     }
 
-    @Scheduled(fixedDelayString = "${service.invoiceCheckPeriod:5}", timeUnit = SECONDS)
+    @Scheduled(fixedDelayString = "${service.invoiceCheckPeriod:60}", timeUnit = SECONDS)
     public void checkPayments() {
-        var bookingRequest = BookingRequest.of().withStatus(List.of(BookingStatus.WAITING_FOR_PAYMENT));
-        var bookings = bookingService.getBookingList(bookingRequest);
-        for (var booking : bookings) {
-            var payment = bookingService.getBookingForUser(booking.getId()).getPayment();
-            var result = paymentService.checkPaymentDocument(payment.getId());
-            if (result.equals(PaymentStatus.PAID)) {
-                bookingService.setStatus(booking.getId(), BookingStatus.PAID, ACTOR);
-            }
-        }
+        paymentPoller.pollPendingInvoices();
     }
 
     @Scheduled(cron = "${service.checkVouchersToExpired}")
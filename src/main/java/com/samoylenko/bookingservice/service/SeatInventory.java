@@ -0,0 +1,297 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
+import com.samoylenko.bookingservice.model.walk.WalkEntity;
+import com.samoylenko.bookingservice.repository.WalkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.samoylenko.bookingservice.model.exception.EntityType.WALK;
+import static com.samoylenko.bookingservice.model.walk.WalkSpecification.withStatus;
+import static com.samoylenko.bookingservice.model.walk.WalkStatus.BOOKING_IN_PROGRESS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Счетчики свободных мест прогулок в памяти.
+ * Резервирование решается под блокировкой конкретной прогулки, подтвержденные изменения
+ * пачкой записываются в таблицу walk и периодически сверяются с БД.
+ * Запись и сверка идут в собственных транзакциях и не пересекаются между собой: иначе сверка могла бы
+ * прочитать БД до записи пачки, а применить снимок уже после нее и потерять записанные места.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "service", name = "seatInventoryEnabled", havingValue = "true")
+public class SeatInventory {
+    private static final String FLUSH_SQL = """
+            UPDATE walk
+            SET reserved_places = reserved_places + ?,
+                available_places = max_places - reserved_places - ?,
+                version = version + 1,
+                last_modified_date = now()
+            WHERE id = ?
+            """;
+
+    private final WalkRepository walkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WalkCatalogCache catalogCache;
+    private final Map<String, Seats> seats = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public SeatInventory(WalkRepository walkRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         WalkCatalogCache catalogCache) {
+        this.walkRepository = walkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // запись не должна присоединяться к транзакции вызывающего кода: при ее откате записанные места потерялись бы
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.catalogCache = catalogCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        var walks = walkRepository.findAll(withStatus(BOOKING_IN_PROGRESS));
+        walks.forEach(walk -> seats.putIfAbsent(walk.getId(), new Seats(walk)));
+        log.info("Seat inventory warmed up with {} walks", walks.size());
+    }
+
+    /**
+     * Резервирует места в памяти. Если вызов идет внутри транзакции, изменение попадает
+     * в очередь на запись только после коммита, а при откате места возвращаются.
+     */
+    public boolean reserve(String walkId, int places) {
+        var walkSeats = getSeats(walkId);
+        if (!walkSeats.reserve(places)) {
+            return false;
+        }
+        afterCompletion(() -> walkSeats.confirm(places), () -> walkSeats.cancel(places));
+        return true;
+    }
+
+    public boolean release(String walkId, int places) {
+        var walkSeats = getSeats(walkId);
+        if (!walkSeats.release(places)) {
+            return false;
+        }
+        afterCompletion(() -> walkSeats.confirm(-places), () -> walkSeats.cancel(-places));
+        return true;
+    }
+
+    /**
+     * Учитывает места, уже освобожденные в БД в обход инвентаря.
+     */
+    public void releasedInDatabase(String walkId, int places) {
+        var walkSeats = seats.get(walkId);
+        if (walkSeats != null) {
+            afterCompletion(() -> walkSeats.released(places), () -> {
+            });
+        }
+    }
+
+    public int getAvailablePlaces(String walkId) {
+        return getSeats(walkId).available();
+    }
+
+    /**
+     * Сбрасывает накопленные изменения прогулки в БД и перечитывает ее счетчики.
+     * Вызывается вне транзакции, изменившей прогулку, иначе перечитаются незакоммиченные данные.
+     */
+    public void refresh(String walkId) {
+        var walkSeats = seats.get(walkId);
+        if (walkSeats == null) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flush(List.of(walkSeats));
+            transactionTemplate.execute(status -> walkRepository.findById(walkId))
+                    .ifPresentOrElse(walkSeats::reconcile, () -> seats.remove(walkId));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${service.seatInventoryFlushPeriod:200}")
+    public void flush() {
+        flush(seats.values());
+    }
+
+    @Scheduled(fixedDelayString = "${service.seatInventoryReconcilePeriod:60}", timeUnit = SECONDS)
+    public void reconcile() {
+        flushLock.lock();
+        try {
+            flush();
+            var walks = transactionTemplate.execute(status -> walkRepository.findAllById(List.copyOf(seats.keySet())));
+            walks.forEach(walk -> {
+                var walkSeats = seats.get(walk.getId());
+                if (walkSeats != null) {
+                    walkSeats.reconcile(walk);
+                }
+            });
+            if (walks.size() != seats.size()) {
+                var existing = walks.stream().map(WalkEntity::getId).toList();
+                seats.keySet().retainAll(existing);
+            }
+            log.debug("Seat inventory reconciled {} walks", walks.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flush(Iterable<Seats> candidates) {
+        flushLock.lock();
+        try {
+            flushLocked(candidates);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked(Iterable<Seats> candidates) {
+        var batch = new ArrayList<Object[]>();
+        var flushed = new ArrayList<Seats>();
+        var deltas = new ArrayList<Integer>();
+        for (var walkSeats : candidates) {
+            var delta = walkSeats.takeDelta();
+            if (delta != 0) {
+                batch.add(new Object[]{delta, delta, walkSeats.walkId});
+                flushed.add(walkSeats);
+                deltas.add(delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        var success = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batch));
+            success = true;
+            // каталог читает места из БД, поэтому вытесняется, когда до нее дошли изменения
+            catalogCache.evictWalks(flushed.stream().map(walkSeats -> walkSeats.walkId).toList());
+            log.debug("Flushed seat deltas of {} walks", batch.size());
+        } catch (Exception e) {
+            log.error("Failed to flush seat deltas of {} walks", batch.size(), e);
+        } finally {
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).flushed(deltas.get(i), success);
+            }
+        }
+    }
+
+    private Seats getSeats(String walkId) {
+        var walkSeats = seats.get(walkId);
+        if (walkSeats != null) {
+            return walkSeats;
+        }
+        var walk = walkRepository.findById(walkId)
+                .orElseThrow(() -> new EntityNotFoundException(WALK, walkId));
+        return seats.computeIfAbsent(walkId, id -> new Seats(walk));
+    }
+
+    private void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    private static class Seats {
+        private final String walkId;
+        private int maxPlaces;
+        // включает изменения, которые еще не записаны в БД
+        private int reservedPlaces;
+        // ждут коммита транзакции бронирования
+        private int uncommittedDelta;
+        // подтверждены, но еще не записаны
+        private int pendingDelta;
+        // записываются в БД прямо сейчас
+        private int flushingDelta;
+
+        Seats(WalkEntity walk) {
+            this.walkId = walk.getId();
+            this.maxPlaces = walk.getMaxPlaces();
+            this.reservedPlaces = walk.getReservedPlaces();
+        }
+
+        synchronized boolean reserve(int places) {
+            if (maxPlaces - reservedPlaces < places) {
+                return false;
+            }
+            reservedPlaces += places;
+            uncommittedDelta += places;
+            return true;
+        }
+
+        synchronized boolean release(int places) {
+            if (reservedPlaces < places) {
+                return false;
+            }
+            reservedPlaces -= places;
+            uncommittedDelta -= places;
+            return true;
+        }
+
+        synchronized void confirm(int delta) {
+            uncommittedDelta -= delta;
+            pendingDelta += delta;
+        }
+
+        synchronized void cancel(int delta) {
+            uncommittedDelta -= delta;
+            reservedPlaces -= delta;
+        }
+
+        synchronized void released(int places) {
+            reservedPlaces = Math.max(reservedPlaces - places, 0);
+        }
+
+        synchronized int takeDelta() {
+            var delta = pendingDelta;
+            pendingDelta = 0;
+            flushingDelta += delta;
+            return delta;
+        }
+
+        synchronized void flushed(int delta, boolean success) {
+            flushingDelta -= delta;
+            if (!success) {
+                pendingDelta += delta;
+            }
+        }
+
+        synchronized int available() {
+            return maxPlaces - reservedPlaces;
+        }
+
+        synchronized void reconcile(WalkEntity walk) {
+            maxPlaces = walk.getMaxPlaces();
+            reservedPlaces = walk.getReservedPlaces() + flushingDelta + pendingDelta + uncommittedDelta;
+        }
+    }
+}
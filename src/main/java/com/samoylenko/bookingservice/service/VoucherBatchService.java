@@ -0,0 +1,134 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.config.ServiceProperties;
+import com.samoylenko.bookingservice.model.voucher.VoucherBatchProgress;
+import com.samoylenko.bookingservice.model.voucher.VoucherCreateDto;
+import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
+import com.samoylenko.bookingservice.service.utils.CodeGenerator;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.annotation.Validated;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Массовая генерация ваучеров по шаблону.
+ * Коды генерируются и проверяются на уникальность в памяти, в БД пишутся пачками через JDBC:
+ * одна пачка - один многострочный insert в отдельной транзакции. Коды, уже занятые в БД,
+ * пропускаются и генерируются заново.
+ */
+@Slf4j
+@Service
+@Validated
+public class VoucherBatchService {
+    private static final String INSERT_SQL = """
+            INSERT INTO voucher (id, version, created_date, last_modified_date, deleted, code, type, status,
+                                 discount_percent, discount_absolute, count, distributor, route_id, expired_at)
+            VALUES %s
+            ON CONFLICT (code) DO NOTHING
+            RETURNING code
+            """;
+    private static final String INSERT_ROW = "(?, 0, ?, ?, false, ?, ?, ?, ?, ?, 0, ?, ?, ?)";
+
+    private final PromotionService promotionService;
+    private final VoucherCodeFilter codeFilter;
+    private final RouteService routeService;
+    private final CodeGenerator codeGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ServiceProperties properties;
+
+    public VoucherBatchService(PromotionService promotionService, VoucherCodeFilter codeFilter, RouteService routeService,
+                               CodeGenerator codeGenerator, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               ServiceProperties properties) {
+        this.promotionService = promotionService;
+        this.codeFilter = codeFilter;
+        this.routeService = routeService;
+        this.codeGenerator = codeGenerator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Проверяет шаблон и генерирует count различных кодов. В БД ничего не пишет.
+     */
+    public List<String> generateCodes(@Valid VoucherCreateDto template, int count) {
+        if (count < 1 || count > properties.getVoucherBatchMaxSize()) {
+            throw new IllegalArgumentException("Количество ваучеров должно быть от 1 до " + properties.getVoucherBatchMaxSize());
+        }
+        routeService.checkExists(template.getRouteId());
+        return List.copyOf(codeGenerator.getCodes(count));
+    }
+
+    /**
+     * Записывает ваучеры с кодами codes по шаблону и сообщает о каждой записанной пачке.
+     * Код шаблона игнорируется.
+     */
+    public void createVouchers(VoucherCreateDto template, List<String> codes, Consumer<VoucherBatchProgress> progress) {
+        log.info("Creating {} vouchers: {}", codes.size(), template);
+        var used = new HashSet<>(codes);
+        var pending = new ArrayList<>(codes);
+        var created = 0;
+        for (int from = 0; from < pending.size(); ) {
+            var to = Math.min(from + properties.getVoucherBatchInsertSize(), pending.size());
+            var chunk = List.copyOf(pending.subList(from, to));
+            from = to;
+
+            var inserted = insert(template, chunk);
+            codeFilter.addAll(inserted);
+            promotionService.evictVoucherCodes(inserted);
+            created += inserted.size();
+            for (int i = inserted.size(); i < chunk.size(); i++) {
+                pending.add(nextCode(used));
+            }
+            progress.accept(new VoucherBatchProgress(created, codes.size(), inserted));
+        }
+        log.info("{} vouchers have been created", created);
+    }
+
+    private List<String> insert(VoucherCreateDto template, List<String> codes) {
+        var now = Timestamp.from(Instant.now());
+        var expiredAt = template.getExpiredAt() == null ? null : Timestamp.from(template.getExpiredAt());
+        var args = codes.stream()
+                .flatMap(code -> Stream.of(UUID.randomUUID().toString(), now, now, code,
+                        template.getType().ordinal(), VoucherStatus.ACTIVE.ordinal(),
+                        template.getDiscountPercent(), template.getDiscountAbsolute(),
+                        template.getDistributor(), template.getRouteId(), expiredAt))
+                .toArray();
+        var sql = INSERT_SQL.formatted(String.join(", ", Collections.nCopies(codes.size(), INSERT_ROW)));
+        // записанными считаются только коды, которые вернула БД
+        var returned = transactionTemplate.execute(status -> jdbcTemplate.queryForList(sql, String.class, args));
+        var insertedCodes = returned == null ? Set.<String>of() : new HashSet<>(returned);
+        var inserted = new ArrayList<String>(codes.size());
+        for (var code : codes) {
+            if (insertedCodes.contains(code)) {
+                inserted.add(code);
+            }
+        }
+        if (inserted.size() < codes.size()) {
+            log.warn("{} generated voucher codes already exist and will be replaced", codes.size() - inserted.size());
+        }
+        return inserted;
+    }
+
+    private String nextCode(HashSet<String> used) {
+        var code = codeGenerator.getCode();
+        while (!used.add(code)) {
+            code = codeGenerator.getCode();
+        }
+        return code;
+    }
+}
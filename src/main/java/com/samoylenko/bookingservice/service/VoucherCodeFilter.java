@@ -0,0 +1,109 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.config.ServiceProperties;
+import com.samoylenko.bookingservice.model.voucher.VoucherDto;
+import com.samoylenko.bookingservice.repository.VoucherRepository;
+import com.samoylenko.bookingservice.service.utils.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Фильтр Блума по кодам существующих ваучеров для публичного расчета скидки.
+ * Коды, которых точно нет, не доходят до БД. Пока фильтр не загружен, проверка пропускает все коды.
+ * Коды, созданные другими инстансами, догружаются периодически по дате создания.
+ */
+@Slf4j
+@Component
+public class VoucherCodeFilter {
+    // перекрытие окна догрузки: ваучер мог быть записан с более ранней датой, а закоммичен позже
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(5);
+
+    private final VoucherRepository voucherRepository;
+    private final BloomFilter codes;
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private volatile Instant loadedSince;
+
+    public VoucherCodeFilter(VoucherRepository voucherRepository, ServiceProperties properties,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        this.voucherRepository = voucherRepository;
+        this.codes = new BloomFilter(properties.getVoucherCodeFilterCapacity(), properties.getVoucherCodeFilterFalsePositiveRate());
+        meterRegistry.ifAvailable(this::bindTo);
+    }
+
+    @Scheduled(fixedDelayString = "${service.voucherCodeFilterRefreshPeriod:60}", timeUnit = SECONDS)
+    public void refresh() {
+        var startedAt = Instant.now();
+        var loaded = loadedSince == null ?
+                voucherRepository.findAllCodes() :
+                voucherRepository.findCodesCreatedSince(loadedSince);
+        loaded.forEach(codes::put);
+        if (loadedSince == null) {
+            log.info("Voucher code filter loaded with {} codes", loaded.size());
+        }
+        loadedSince = startedAt.minus(REFRESH_OVERLAP);
+    }
+
+    public void add(String code) {
+        codes.put(code);
+    }
+
+    public void addAll(Collection<String> newCodes) {
+        newCodes.forEach(codes::put);
+    }
+
+    public boolean mightContain(String code) {
+        return loadedSince == null || codes.mightContain(code);
+    }
+
+    /**
+     * Ищет ваучер через loader, только если код может существовать.
+     */
+    public VoucherDto lookup(String code, Function<String, VoucherDto> loader) {
+        if (code == null) return null;
+        if (!mightContain(code)) {
+            skipped.increment();
+            return null;
+        }
+        passed.increment();
+        var voucher = loader.apply(code);
+        if (voucher == null) {
+            falsePositives.increment();
+        }
+        return voucher;
+    }
+
+    private void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("voucher.code.filter.skipped", skipped, LongAdder::sum)
+                .description("Lookups of unknown voucher codes answered without the database")
+                .register(registry);
+        FunctionCounter.builder("voucher.code.filter.passed", passed, LongAdder::sum)
+                .description("Lookups of voucher codes passed to the database")
+                .register(registry);
+        FunctionCounter.builder("voucher.code.filter.false.positives", falsePositives, LongAdder::sum)
+                .description("Passed lookups of voucher codes that do not exist")
+                .register(registry);
+        Gauge.builder("voucher.code.filter.false.positive.rate", this, VoucherCodeFilter::falsePositiveRate)
+                .description("Share of unknown voucher codes passed by the filter to the database")
+                .register(registry);
+    }
+
+    private double falsePositiveRate() {
+        var negatives = skipped.sum() + falsePositives.sum();
+        return negatives == 0 ? 0 : (double) falsePositives.sum() / negatives;
+    }
+}
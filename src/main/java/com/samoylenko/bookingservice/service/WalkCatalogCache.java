@@ -0,0 +1,192 @@
+package com.samoylenko.bookingservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.samoylenko.bookingservice.config.ServiceProperties;
+import com.samoylenko.bookingservice.model.walk.CompositeUserWalkDto;
+import com.samoylenko.bookingservice.model.walk.WalkDto;
+import com.samoylenko.bookingservice.model.walk.WalkRequest;
+import com.samoylenko.bookingservice.model.walk.WalkStatus;
+import com.samoylenko.bookingservice.service.utils.AfterCommit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Кэш публичного каталога: страницы списка прогулок и карточки прогулок.
+ * Одновременные промахи по одному ключу загружаются один раз, остальные запросы ждут результат.
+ * Записи вытесняются после коммита транзакции, изменившей прогулку: страницы - только по маршруту прогулки,
+ * если он известен, иначе все. Загрузка, во время которой произошло вытеснение, в кэше не остается:
+ * она могла прочитать данные до коммита.
+ * Вытеснение локально для экземпляра сервиса, в остальных экземплярах изменения видны не позже чем через ttl.
+ */
+@Component
+public class WalkCatalogCache {
+    static final String PAGES = "walkCatalogPages";
+    static final String WALKS = "walkCatalogWalks";
+
+    private final Cache<PageKey, Page<WalkDto>> pages;
+    private final Cache<String, CompositeUserWalkDto> walks;
+    // маршрут прогулки не меняется, поэтому запоминается при загрузке и используется для вытеснения страниц
+    private final Cache<String, String> walkRoutes;
+    // номер вытеснения, увеличивается перед каждым вытеснением
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder pageInvalidations = new LongAdder();
+    private final LongAdder walkInvalidations = new LongAdder();
+
+    public WalkCatalogCache(ServiceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        var ttl = Duration.ofSeconds(properties.getWalkCatalogCacheTtl());
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(properties.getWalkCatalogPageCacheSize())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.walks = Caffeine.newBuilder()
+                .maximumSize(properties.getWalkCatalogWalkCacheSize())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.walkRoutes = Caffeine.newBuilder()
+                .maximumSize(properties.getWalkCatalogWalkCacheSize())
+                .build();
+        meterRegistry.ifAvailable(this::bindTo);
+    }
+
+    public Page<WalkDto> getPage(WalkRequest request, Supplier<Page<WalkDto>> loader) {
+        return load(pages, PageKey.of(request), () -> {
+            var page = loader.get();
+            page.forEach(walk -> walkRoutes.put(walk.getId(), walk.getRouteId()));
+            return page;
+        });
+    }
+
+    public CompositeUserWalkDto getWalk(String walkId, Supplier<CompositeUserWalkDto> loader) {
+        return load(walks, walkId, () -> {
+            var walk = loader.get();
+            if (walk.getRoute() != null) {
+                walkRoutes.put(walkId, walk.getRoute().getId());
+            }
+            return walk;
+        });
+    }
+
+    /**
+     * Прогулка изменилась: вытесняет ее карточку и страницы ее маршрута после коммита текущей транзакции.
+     */
+    public void evictWalk(String walkId) {
+        AfterCommit.run(() -> invalidateWalks(List.of(walkId)));
+    }
+
+    public void evictWalks(Collection<String> walkIds) {
+        if (!walkIds.isEmpty()) {
+            AfterCommit.run(() -> invalidateWalks(walkIds));
+        }
+    }
+
+    /**
+     * Появилась новая прогулка маршрута: карточек еще нет, вытесняются только страницы.
+     */
+    public void evictRoute(String routeId) {
+        AfterCommit.run(() -> invalidatePages(routeId));
+    }
+
+    public void evictAll() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            pageInvalidations.add(pages.estimatedSize());
+            walkInvalidations.add(walks.estimatedSize());
+            pages.invalidateAll();
+            walks.invalidateAll();
+        });
+    }
+
+    /**
+     * Загружает значение при промахе. Если во время загрузки было вытеснение, значение отдается,
+     * но удаляется из кэша: незавершенную загрузку вытеснение не видит и не удаляет.
+     */
+    private <K, V> V load(Cache<K, V> cache, K key, Supplier<V> loader) {
+        var stale = new AtomicBoolean();
+        var value = cache.get(key, k -> {
+            var loadGeneration = generation.get();
+            var loaded = loader.get();
+            stale.set(loadGeneration != generation.get());
+            return loaded;
+        });
+        if (stale.get()) {
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private void invalidateWalks(Collection<String> walkIds) {
+        generation.incrementAndGet();
+        var routeIds = new HashSet<String>();
+        var unknownRoute = false;
+        for (var walkId : walkIds) {
+            if (walks.asMap().remove(walkId) != null) {
+                walkInvalidations.increment();
+            }
+            var routeId = walkRoutes.getIfPresent(walkId);
+            unknownRoute |= routeId == null;
+            routeIds.add(routeId);
+        }
+        if (unknownRoute) {
+            // прогулка не попадала в загруженные страницы, но после изменения может в них попасть
+            invalidatePages(null);
+        } else {
+            routeIds.forEach(this::invalidatePages);
+        }
+    }
+
+    /**
+     * Вытесняет страницы маршрута и страницы без фильтра по маршруту; null - все страницы.
+     */
+    private void invalidatePages(String routeId) {
+        generation.incrementAndGet();
+        pages.asMap().keySet().removeIf(key -> {
+            var matches = routeId == null || key.routeId() == null || key.routeId().equals(routeId);
+            if (matches) {
+                pageInvalidations.increment();
+            }
+            return matches;
+        });
+    }
+
+    private void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, pages, PAGES);
+        CaffeineCacheMetrics.monitor(registry, walks, WALKS);
+        FunctionCounter.builder("cache.invalidations", pageInvalidations, LongAdder::sum)
+                .tag("cache", PAGES)
+                .description("Entries removed because a walk changed")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations", walkInvalidations, LongAdder::sum)
+                .tag("cache", WALKS)
+                .description("Entries removed because a walk changed")
+                .register(registry);
+    }
+
+    record PageKey(String routeId, WalkStatus status, Instant startAfter, Instant startBefore,
+                   Instant endAfter, Instant endBefore, Integer availablePlaces, Pageable pageable) {
+
+        static PageKey of(WalkRequest request) {
+            return new PageKey(request.getRouteId(), request.getStatus(),
+                    request.getStartAfter(), request.getStartBefore(),
+                    request.getEndAfter(), request.getEndBefore(),
+                    request.getAvailablePlaces(), request.getPageRequest());
+        }
+    }
+}
@@ -1,27 +1,33 @@
 package com.samoylenko.bookingservice.service;
 
+import com.samoylenko.bookingservice.model.CursorSlice;
+import com.samoylenko.bookingservice.model.KeysetSpecification;
+import com.samoylenko.bookingservice.model.PageCursor;
 import com.samoylenko.bookingservice.model.exception.EntityCreateException;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.model.exception.EntityUpdateException;
 import com.samoylenko.bookingservice.model.exception.LimitExceededException;
 import com.samoylenko.bookingservice.model.walk.*;
 import com.samoylenko.bookingservice.repository.WalkRepository;
-import jakarta.annotation.PostConstruct;
+import com.samoylenko.bookingservice.service.mapper.BookingMapper;
+import com.samoylenko.bookingservice.service.mapper.WalkMapper;
+import com.samoylenko.bookingservice.service.utils.AfterCommit;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.Converter;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import static com.samoylenko.bookingservice.model.exception.EntityType.WALK;
@@ -35,25 +41,21 @@ public class WalkService {
     private final RouteService routeService;
     private final BookingService bookingService;
     private final WalkRepository walkRepository;
-    private final ModelMapper modelMapper;
+    private final WalkMapper walkMapper;
+    private final BookingMapper bookingMapper;
+    private final Optional<SeatInventory> seatInventory;
+    private final WalkCatalogCache catalogCache;
 
-    public WalkService(RouteService routeService, @Lazy BookingService bookingService, WalkRepository walkRepository, ModelMapper modelMapper) {
+    public WalkService(RouteService routeService, @Lazy BookingService bookingService, WalkRepository walkRepository,
+                       WalkMapper walkMapper, BookingMapper bookingMapper, Optional<SeatInventory> seatInventory,
+                       WalkCatalogCache catalogCache) {
         this.routeService = routeService;
         this.bookingService = bookingService;
         this.walkRepository = walkRepository;
-        this.modelMapper = modelMapper;
-    }
-
-    @PostConstruct
-    public void init() {
-        Converter<WalkEntity, Integer> toAvailablePlaces = c -> c.getSource().getMaxPlaces() - c.getSource().getReservedPlaces();
-        modelMapper.createTypeMap(WalkEntity.class, WalkDto.class)
-                .addMappings(mapper -> mapper.map(src -> src.getRoute().getId(), WalkDto::setRouteId))
-                .addMappings(mapper -> mapper.using(toAvailablePlaces).map(src -> src, WalkDto::setAvailablePlaces));
-        modelMapper.createTypeMap(WalkEntity.class, CompositeAdminWalkDto.class)
-                .addMappings(mapper -> mapper.using(toAvailablePlaces).map(src -> src, CompositeAdminWalkDto::setAvailablePlaces));
-        modelMapper.createTypeMap(WalkEntity.class, CompositeUserWalkDto.class)
-                .addMappings(mapper -> mapper.using(toAvailablePlaces).map(src -> src, CompositeUserWalkDto::setAvailablePlaces));
+        this.walkMapper = walkMapper;
+        this.bookingMapper = bookingMapper;
+        this.seatInventory = seatInventory;
+        this.catalogCache = catalogCache;
     }
 
     @Transactional
@@ -74,9 +76,8 @@ public class WalkService {
                     .build();
 
             var saved = walkRepository.save(entity);
-            modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
-            var dto = modelMapper.map(saved, CompositeAdminWalkDto.class)
-                    .withBookings(List.of());
+            catalogCache.evictRoute(route.getId());
+            var dto = walkMapper.toAdminDto(saved, List.of());
             log.info("Walk has been created with id {}", dto.getId());
             return dto;
         } catch (Exception e) {
@@ -84,44 +85,53 @@ public class WalkService {
         }
     }
 
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    @Transactional
     public void reservePlaces(@NotBlank String walkId, int numberOfPlaces) {
-        var walk = getWalkEntityById(walkId);
-        var availablePlaces = walk.getMaxPlaces() - walk.getReservedPlaces();
-        if (availablePlaces < numberOfPlaces) {
+        if (seatInventory.isPresent()) {
+            if (!seatInventory.get().reserve(walkId, numberOfPlaces)) {
+                throw new LimitExceededException("Failed to reserve %s places for walk %s, %s available"
+                        .formatted(numberOfPlaces, walkId, seatInventory.get().getAvailablePlaces(walkId)));
+            }
+        } else if (walkRepository.reservePlaces(walkId, numberOfPlaces) == 0) {
+            var walk = getWalkEntityById(walkId);
+            var availablePlaces = walk.getMaxPlaces() - walk.getReservedPlaces();
             throw new LimitExceededException("Failed to reserve %s places for walk %s, %s available"
                     .formatted(numberOfPlaces, walkId, availablePlaces));
         }
-        walk.setReservedPlaces(walk.getReservedPlaces() + numberOfPlaces);
-        walk.setAvailablePlaces(walk.getMaxPlaces() - walk.getReservedPlaces());
-        walkRepository.save(walk);
-        log.info("Locked {} places of walk {}, available: {}", numberOfPlaces, walkId, availablePlaces);
+        catalogCache.evictWalk(walkId);
+        log.info("Locked {} places of walk {}", numberOfPlaces, walkId);
     }
 
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    @Transactional
     public void releasePlaces(@NotBlank String walkId, int numberOfPlaces) {
-        var walk = walkRepository.findById(walkId)
-                .orElseThrow(() -> new EntityNotFoundException(WALK, walkId));
-        if (walk.getReservedPlaces() < numberOfPlaces) {
+        if (seatInventory.isPresent()) {
+            if (!seatInventory.get().release(walkId, numberOfPlaces)) {
+                throw new LimitExceededException("Failed to release %s places for walk %s"
+                        .formatted(numberOfPlaces, walkId));
+            }
+        } else if (walkRepository.releasePlaces(walkId, numberOfPlaces) == 0) {
+            var walk = getWalkEntityById(walkId);
             throw new LimitExceededException("Failed to release %s places for walk %s, %s reserved"
                     .formatted(numberOfPlaces, walkId, walk.getReservedPlaces()));
         }
-        walk.setReservedPlaces(walk.getReservedPlaces() - numberOfPlaces);
-        walk.setAvailablePlaces(walk.getMaxPlaces() - walk.getReservedPlaces());
-        walkRepository.save(walk);
-        var availablePlaces = walk.getMaxPlaces() - walk.getReservedPlaces();
-        log.info("Unlocked {} places of walk {}, available: {}", numberOfPlaces, walkId, availablePlaces);
+        catalogCache.evictWalk(walkId);
+        log.info("Unlocked {} places of walk {}", numberOfPlaces, walkId);
+    }
+
+    /**
+     * Вызывается после того, как места прогулки были освобождены массовым запросом в обход {@link #releasePlaces}.
+     */
+    public void onPlacesReleased(@NotBlank String walkId, int numberOfPlaces) {
+        seatInventory.ifPresent(inventory -> inventory.releasedInDatabase(walkId, numberOfPlaces));
+        catalogCache.evictWalk(walkId);
     }
 
     @Transactional
     public CompositeAdminWalkDto getWalkForAdmin(@NotBlank String id) {
-        var entity = getWalkEntityById(id);
-        var dto = modelMapper.map(entity, CompositeAdminWalkDto.class);
-        var bookings = dto.getBookings().stream()
-                .map(booking -> bookingService.getBookingForAdmin(booking.getId()))
-                .toList();
-        dto.setBookings(bookings);
-        return dto;
+        var entity = walkRepository.findWithRouteById(id)
+                .orElseThrow(() -> new EntityNotFoundException(WALK, id));
+        var bookings = bookingService.getBookingsForAdmin(id);
+        return walkMapper.toAdminDto(entity, bookings);
     }
 
     public WalkEntity getWalkEntityById(@NotBlank String id) {
@@ -131,22 +141,42 @@ public class WalkService {
 
     @Transactional
     public Page<WalkDto> getWalksForAdmin(WalkRequest request) {
-        var spec = WalkSpecification
+        return walkRepository
+                .findAll(adminFilter(request), request.getPageRequest())
+                .map(walkMapper::toDto);
+    }
+
+    @Transactional
+    public CursorSlice<WalkDto> scrollWalksForAdmin(WalkRequest request) {
+        return scrollWalks(adminFilter(request), request);
+    }
+
+    /**
+     * Публичный каталог читается из кэша, поэтому без транзакции: при попадании соединение с БД не нужно.
+     */
+    public Page<WalkDto> getWalksForUser(WalkRequest request) {
+        return catalogCache.getPage(request, () -> walkRepository
+                .findAll(userFilter(request), request.getPageRequest())
+                .map(walkMapper::toDto));
+    }
+
+    @Transactional
+    public CursorSlice<WalkDto> scrollWalksForUser(WalkRequest request) {
+        return scrollWalks(userFilter(request), request);
+    }
+
+    private Specification<WalkEntity> adminFilter(WalkRequest request) {
+        return WalkSpecification
                 .withStatus(request.getStatus())
                 .and(withRoute(request.getRouteId()))
                 .and(startTimeAfter(request.getStartAfter()))
                 .and(startTimeBefore(request.getStartBefore()))
                 .and(withAvailablePlacesMoreOrEqualTo(request.getAvailablePlaces()))
                 .and(withEmployee(request.getEmployeeId()));
-
-        return walkRepository
-                .findAll(spec, request.getPageRequest())
-                .map((element) -> modelMapper.map(element, WalkDto.class));
     }
 
-    @Transactional
-    public Page<WalkDto> getWalksForUser(WalkRequest request) {
-        var spec = WalkSpecification
+    private Specification<WalkEntity> userFilter(WalkRequest request) {
+        return WalkSpecification
                 .withRoute(request.getRouteId())
                 .and(withStatus(request.getStatus()))
                 .and(startTimeAfter(request.getStartAfter()))
@@ -154,21 +184,37 @@ public class WalkService {
                 .and(endTimeAfter(request.getEndAfter()))
                 .and(endTimeBefore(request.getEndBefore()))
                 .and(withAvailablePlacesMoreOrEqualTo(request.getAvailablePlaces()));
+    }
 
-        return walkRepository
-                .findAll(spec, request.getPageRequest())
-                .map((element) -> modelMapper.map(element, WalkDto.class));
+    /**
+     * Keyset-пагинация по (поле сортировки, id): без COUNT и без OFFSET.
+     */
+    private CursorSlice<WalkDto> scrollWalks(Specification<WalkEntity> spec, WalkRequest request) {
+        var sortBy = request.getSortBy() == null ? WalkRequest.SortField.START_TIME : request.getSortBy();
+        var direction = request.getDirection() == null ? Sort.Direction.DESC : request.getDirection();
+        var size = request.getPageSizeOrDefault();
+        if (request.getCursor() != null) {
+            var cursor = PageCursor.decode(request.getCursor());
+            spec = spec.and(KeysetSpecification.after(sortBy.getFieldName(), sortBy.parse(cursor.value()), cursor.id(), direction));
+        }
+        var sort = Sort.by(direction, sortBy.getFieldName(), "id");
+        var walks = walkRepository.findBy(spec, query -> query.sortBy(sort).limit(size + 1).all());
+        return CursorSlice.of(walks, size, sort,
+                walk -> PageCursor.of(sortBy.getValue().apply(walk), walk.getId()),
+                walkMapper::toDto);
     }
 
-    @Transactional
     public CompositeUserWalkDto getWalkForUser(@NotBlank String id) {
-        var found = getWalkEntityById(id);
-        return modelMapper.map(found, CompositeUserWalkDto.class);
+        return catalogCache.getWalk(id, () -> walkRepository.findWithRouteById(id)
+                .map(walkMapper::toUserDto)
+                .orElseThrow(() -> new EntityNotFoundException(WALK, id)));
     }
 
     @Transactional(isolation = Isolation.REPEATABLE_READ)
     public CompositeAdminWalkDto updateWalk(@NotBlank String walkId, @Valid WalkUpdateDto updateDto) {
         log.info("Updating walk: {}", updateDto);
+        // запись мест идет в отдельной транзакции до первого чтения этой, поэтому снимок уже ее видит
+        seatInventory.ifPresent(inventory -> inventory.refresh(walkId));
         var walkEntity = getWalkEntityById(walkId);
         try {
             if (updateDto.getMaxPlaces() != null) {
@@ -187,7 +233,13 @@ public class WalkService {
             });
 
             var updated = walkRepository.save(walkEntity);
-            var dto = modelMapper.map(updated, CompositeAdminWalkDto.class);
+            // новое число мест видно инвентарю только после коммита
+            seatInventory.ifPresent(inventory -> AfterCommit.run(() -> inventory.refresh(walkId)));
+            catalogCache.evictWalk(walkId);
+            var bookings = updated.getBookings().stream()
+                    .map(bookingMapper::toAdminDto)
+                    .toList();
+            var dto = walkMapper.toAdminDto(updated, bookings);
             log.info("Walk {} has been successfully updated", walkId);
             return dto;
         } catch (Exception e) {
@@ -205,6 +257,33 @@ public class WalkService {
         var found = getWalkEntityById(id);
         found.setStatus(WalkStatus.DELETED);
         walkRepository.save(found);
+        catalogCache.evictWalk(id);
+    }
+
+    public List<WalkKey> getWalksToCloseBooking(@NotNull Instant startBefore, @NotNull WalkKey after, int limit) {
+        return walkRepository.findKeysStartingBefore(WalkStatus.BOOKING_IN_PROGRESS, startBefore, after, limit);
+    }
+
+    public List<WalkKey> getWalksToFinish(@NotNull Instant endAfter, @NotNull WalkKey after, int limit) {
+        return walkRepository.findKeysEndingAfter(WalkStatus.BOOKING_FINISHED, endAfter, after, limit);
+    }
+
+    /**
+     * Закрывает запись на прогулки и переводит их оплаченные бронирования в COMPLETED.
+     */
+    @Transactional
+    public int closeBooking(@NotNull List<String> walkIds, @NotBlank String actor) {
+        var updated = walkRepository.updateStatus(walkIds, WalkStatus.BOOKING_IN_PROGRESS, WalkStatus.BOOKING_FINISHED, Instant.now());
+        bookingService.completePaidBookings(walkIds, actor);
+        catalogCache.evictWalks(walkIds);
+        return updated;
+    }
+
+    @Transactional
+    public int finish(@NotNull List<String> walkIds) {
+        var updated = walkRepository.updateStatus(walkIds, WalkStatus.BOOKING_FINISHED, WalkStatus.FINISHED, Instant.now());
+        catalogCache.evictWalks(walkIds);
+        return updated;
     }
 
     public void setStatus(@NotBlank String id, @NotNull WalkStatus walkStatus) {
@@ -212,6 +291,7 @@ public class WalkService {
         var oldStatus = walk.getStatus();
         walk.setStatus(walkStatus);
         walkRepository.save(walk);
+        catalogCache.evictWalk(id);
         log.info("Updated status of walk {} from {} to {}", id, oldStatus, walkStatus);
     }
 }
@@ -9,11 +9,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.math.RoundingMode;
-
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.CERTIFICATE;
-import static java.math.BigDecimal.ZERO;
-import static java.math.BigDecimal.valueOf;
+import static com.samoylenko.bookingservice.service.discount.DiscountArithmetic.absoluteDiscount;
+import static com.samoylenko.bookingservice.service.discount.DiscountArithmetic.fullCost;
 import static org.springframework.util.StringUtils.hasText;
 
 /**
@@ -58,7 +56,7 @@ public class CertificateHandler implements DiscountHandler {
     @Override
     public DiscountDto calculateDiscount(DiscountRequest discountRequest) {
         if (!hasText(discountRequest.getCode())) return null;
-        var voucher = promotionService.getVoucherByCode(discountRequest.getCode());
+        var voucher = discountRequest.resolveVoucher(promotionService::getVoucherByCode);
         if (voucher == null) return null;
         if (!voucher.getType().equals(CERTIFICATE)) return null;
         if (voucher.getExpectedRouteId() != null &&
@@ -70,7 +68,7 @@ public class CertificateHandler implements DiscountHandler {
                     .status(DiscountStatus.NOT_APPLIED)
                     .requiredRouteId(voucher.getExpectedRouteId())
                     .priceForOne(discountRequest.getPrice())
-                    .totalCost(discountRequest.getPrice().multiply(valueOf(discountRequest.getQuantity())))
+                    .totalCost(fullCost(discountRequest.getPrice(), discountRequest.getQuantity()))
                     .quantity(discountRequest.getQuantity())
                     .build();
         }
@@ -78,31 +76,14 @@ public class CertificateHandler implements DiscountHandler {
             var discountStatus = voucher.getStatus().equals(VoucherStatus.EXPIRED) ?
                     DiscountStatus.EXPIRED :
                     DiscountStatus.ALREADY_APPlIED;
-            var cost = discountRequest.getPrice().multiply(valueOf(discountRequest.getQuantity()));
-            return DiscountDto.builder()
-                    .type(CERTIFICATE)
-                    .code(discountRequest.getCode())
-                    .status(discountStatus)
-                    .priceForOne(discountRequest.getPrice())
-                    .totalCost(cost)
-                    .quantity(discountRequest.getQuantity())
-                    .build();
+            return notApplied(discountRequest, discountStatus);
         }
-        var price = discountRequest.getPrice();
-        var quantity = valueOf(discountRequest.getQuantity());
-        var discountAbsolute = valueOf(voucher.getDiscountAbsolute());
-        var resultCost = price.multiply(quantity).subtract(discountAbsolute);
-        resultCost = resultCost.compareTo(ZERO) > 0 ? resultCost : ZERO;
-        var resultPrice = resultCost.divide(quantity, 2, RoundingMode.UP);
-        return DiscountDto.builder()
+        return absoluteDiscount(discountRequest.getPrice(), discountRequest.getQuantity(), voucher.getDiscountAbsolute())
                 .type(CERTIFICATE)
                 .code(discountRequest.getCode())
                 .status(DiscountStatus.ACTIVE)
                 .discountPercent(voucher.getDiscountPercent())
                 .discountAbsolute(voucher.getDiscountAbsolute())
-                .quantity(discountRequest.getQuantity())
-                .priceForOne(resultPrice)
-                .totalCost(resultCost)
                 .build();
     }
 
@@ -117,8 +98,23 @@ public class CertificateHandler implements DiscountHandler {
         if (discount == null) return null;
         if (discount.getStatus().isValid()) {
             log.info("Applying discount: {}", discount);
-            promotionService.applyVoucher(request);
+            // статус в кэше мог устареть, решает результат применения в БД
+            var status = promotionService.applyVoucher(request);
+            if (!status.isValid()) {
+                return notApplied(request, status);
+            }
         }
         return discount;
     }
+
+    private DiscountDto notApplied(DiscountRequest request, DiscountStatus status) {
+        return DiscountDto.builder()
+                .type(CERTIFICATE)
+                .code(request.getCode())
+                .status(status)
+                .priceForOne(request.getPrice())
+                .totalCost(fullCost(request.getPrice(), request.getQuantity()))
+                .quantity(request.getQuantity())
+                .build();
+    }
 }
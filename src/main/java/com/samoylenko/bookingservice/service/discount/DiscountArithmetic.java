@@ -0,0 +1,100 @@
+package com.samoylenko.bookingservice.service.discount;
+
+import com.samoylenko.bookingservice.model.discount.DiscountDto;
+
+import java.math.BigDecimal;
+
+import static java.lang.Math.addExact;
+import static java.lang.Math.max;
+import static java.lang.Math.multiplyExact;
+import static java.lang.Math.subtractExact;
+
+/**
+ * Расчет стоимости со скидкой в целых числах.
+ * Цена переводится в единицы 10^-scale (не крупнее копеек), все промежуточные значения - long;
+ * BigDecimal создается только для результата. Округление и scale результата совпадают
+ * с расчетом через BigDecimal и RoundingMode.UP.
+ */
+final class DiscountArithmetic {
+    private static final int KOPECK_SCALE = 2;
+    private static final int MAX_SCALE = 9;
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private DiscountArithmetic() {
+    }
+
+    /**
+     * Скидка в процентах и/или фиксированная скидка на каждое место:
+     * <pre>
+     * totalCost = (price - discountAbsolute) * quantity * (100 - discountPercent) / 100
+     * priceForOne = totalCost / quantity
+     * </pre>
+     */
+    static DiscountDto.DiscountDtoBuilder percentDiscount(BigDecimal price, int quantity, int discountPercent, int discountAbsolute) {
+        var scale = unitScale(price);
+        var discounted = subtractExact(toUnits(price, scale), multiplyExact((long) discountAbsolute, POWERS_OF_TEN[scale]));
+        var cost = multiplyExact(multiplyExact(discounted, quantity), 100 - discountPercent);
+        var kopecks = divideUp(cost, 100 * POWERS_OF_TEN[scale - KOPECK_SCALE]);
+        var positive = max(kopecks, 0);
+        return DiscountDto.builder()
+                .quantity(quantity)
+                .priceForOne(BigDecimal.valueOf(divideUp(positive, quantity), KOPECK_SCALE))
+                .totalCost(positive > 0 ? BigDecimal.valueOf(positive, KOPECK_SCALE) : BigDecimal.ZERO);
+    }
+
+    /**
+     * Фиксированная скидка на весь заказ:
+     * <pre>
+     * totalCost = price * quantity - discountAbsolute
+     * priceForOne = totalCost / quantity
+     * </pre>
+     */
+    static DiscountDto.DiscountDtoBuilder absoluteDiscount(BigDecimal price, int quantity, int discountAbsolute) {
+        var scale = unitScale(price);
+        var cost = subtractExact(multiplyExact(toUnits(price, scale), quantity), multiplyExact((long) discountAbsolute, POWERS_OF_TEN[scale]));
+        var positive = max(cost, 0);
+        // scale суммы совпадает с price * quantity - discountAbsolute, то есть не меньше нуля
+        var costScale = max(price.scale(), 0);
+        return DiscountDto.builder()
+                .quantity(quantity)
+                .priceForOne(BigDecimal.valueOf(divideUp(positive, multiplyExact((long) quantity, POWERS_OF_TEN[scale - KOPECK_SCALE])), KOPECK_SCALE))
+                .totalCost(positive > 0 ? BigDecimal.valueOf(positive / POWERS_OF_TEN[scale - costScale], costScale) : BigDecimal.ZERO);
+    }
+
+    /**
+     * Стоимость без скидки, scale как у price * quantity.
+     */
+    static BigDecimal fullCost(BigDecimal price, int quantity) {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    private static int unitScale(BigDecimal price) {
+        var scale = max(price.scale(), KOPECK_SCALE);
+        if (scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Цена " + price + " указана с точностью больше " + MAX_SCALE + " знаков");
+        }
+        return scale;
+    }
+
+    private static long toUnits(BigDecimal price, int scale) {
+        return price.movePointRight(scale).longValueExact();
+    }
+
+    /**
+     * Деление с округлением от нуля, как RoundingMode.UP.
+     */
+    private static long divideUp(long dividend, long divisor) {
+        var quotient = dividend / divisor;
+        if (dividend % divisor != 0) {
+            quotient = addExact(quotient, Long.signum(dividend) * Long.signum(divisor));
+        }
+        return quotient;
+    }
+}
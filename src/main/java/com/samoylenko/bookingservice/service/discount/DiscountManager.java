@@ -5,81 +5,92 @@ import com.samoylenko.bookingservice.model.discount.DiscountDto;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.voucher.DiscountType;
-import com.samoylenko.bookingservice.service.BookingService;
+import com.samoylenko.bookingservice.service.ClientService;
 import com.samoylenko.bookingservice.service.PromotionService;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Применяет первую подходящую скидку из плана.
+ * План собирается один раз при старте: отключенные в настройках акции в него не попадают,
+ * значения включенных акций передаются в обработчики и при расчете не перечитываются.
+ */
 @Getter
 @Component
 public class DiscountManager implements DiscountHandler {
-    private DiscountHandler firstHandler;
+    private List<DiscountHandler> plan;
     private final ServiceProperties serviceProperties;
     private final PromotionService promotionService;
-    private final BookingService bookingService;
+    private final ClientService clientService;
 
-    public DiscountManager(ServiceProperties serviceProperties, PromotionService promotionService, @Lazy BookingService bookingService) {
+    public DiscountManager(ServiceProperties serviceProperties, PromotionService promotionService, ClientService clientService) {
         this.serviceProperties = serviceProperties;
         this.promotionService = promotionService;
-        this.bookingService = bookingService;
+        this.clientService = clientService;
     }
 
     @PostConstruct
     public void init() {
-        var repeatedBookingDiscountHandler = new RepeatedBookingDiscountHandler(null, serviceProperties, bookingService);
-        var groupDiscountHandler = new GroupDiscountHandler(repeatedBookingDiscountHandler, serviceProperties);
-        var promocodHandler = new PromocodHandler(groupDiscountHandler, promotionService);
-        var certificateHandler = new CertificateHandler(promocodHandler, promotionService);
-        this.firstHandler = certificateHandler;
+        var handlers = new ArrayList<DiscountHandler>();
+        DiscountHandler next = null;
+        if (serviceProperties.isRepeatedBookingDiscountEnabled()) {
+            next = new RepeatedBookingDiscountHandler(next, clientService,
+                    serviceProperties.getRepeatedBookingDiscountPercent(),
+                    serviceProperties.getRepeatedBookingDiscountAbsolute());
+            handlers.add(next);
+        }
+        if (serviceProperties.isGroupDiscountEnabled()) {
+            next = new GroupDiscountHandler(next,
+                    serviceProperties.getGroupDiscountMinPlaces(),
+                    serviceProperties.getGroupDiscountValuePercent(),
+                    serviceProperties.getGroupDiscountValueAbsolute());
+            handlers.add(next);
+        }
+        next = new PromocodHandler(next, promotionService);
+        handlers.add(next);
+        handlers.add(new CertificateHandler(next, promotionService));
+        Collections.reverse(handlers);
+        this.plan = List.copyOf(handlers);
     }
 
     @Override
     public DiscountHandler next() {
-        return firstHandler;
+        return plan.get(0);
     }
 
     @Override
     public DiscountDto applyDiscount(DiscountRequest discountRequest) {
-        var handler = firstHandler;
-        while (handler != null) {
-            var discount = handler.applyDiscount(discountRequest);
+        for (int i = 0; i < plan.size(); i++) {
+            var discount = plan.get(i).applyDiscount(discountRequest);
             if (discount != null) {
                 return discount;
             }
-            handler = handler.next();
         }
-        var cost = discountRequest.getPrice().multiply(BigDecimal.valueOf(discountRequest.getQuantity()));
-        return DiscountDto.builder()
-                .type(DiscountType.NONE)
-                .status(DiscountStatus.NONE)
-                .priceForOne(discountRequest.getPrice())
-                .totalCost(cost)
-                .quantity(discountRequest.getQuantity())
-                .discountPercent(0)
-                .discountAbsolute(0)
-                .build();
+        return noDiscount(discountRequest);
     }
 
     @Override
     public DiscountDto calculateDiscount(DiscountRequest discountRequest) {
-        var handler = firstHandler;
-        while (handler != null) {
-            var discount = handler.calculateDiscount(discountRequest);
+        for (int i = 0; i < plan.size(); i++) {
+            var discount = plan.get(i).calculateDiscount(discountRequest);
             if (discount != null) {
                 return discount;
             }
-            handler = handler.next();
         }
-        var cost = discountRequest.getPrice().multiply(BigDecimal.valueOf(discountRequest.getQuantity()));
+        return noDiscount(discountRequest);
+    }
+
+    private DiscountDto noDiscount(DiscountRequest discountRequest) {
         return DiscountDto.builder()
                 .type(DiscountType.NONE)
                 .status(DiscountStatus.NONE)
                 .priceForOne(discountRequest.getPrice())
-                .totalCost(cost)
+                .totalCost(DiscountArithmetic.fullCost(discountRequest.getPrice(), discountRequest.getQuantity()))
                 .quantity(discountRequest.getQuantity())
                 .discountPercent(0)
                 .discountAbsolute(0)
@@ -1,27 +1,26 @@
 package com.samoylenko.bookingservice.service.discount;
 
-import com.samoylenko.bookingservice.config.ServiceProperties;
 import com.samoylenko.bookingservice.model.discount.DiscountDto;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
-import java.math.RoundingMode;
-
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.GROUP_BOOKING;
-import static java.math.BigDecimal.ZERO;
-import static java.math.BigDecimal.valueOf;
+import static com.samoylenko.bookingservice.service.discount.DiscountArithmetic.percentDiscount;
 
 
 /**
- * Обработчик для акции "Скидка от N людей"
+ * Обработчик для акции "Скидка от N людей".
+ * Значения акции фиксируются при сборке плана в {@link DiscountManager}.
  */
 @Getter
 @AllArgsConstructor
 public class GroupDiscountHandler implements DiscountHandler {
     private final DiscountHandler next;
-    private final ServiceProperties serviceProperties;
+    private final int minPlaces;
+    private final int discountPercent;
+    private final int discountAbsolute;
 
 
     @Override
@@ -36,28 +35,12 @@ public class GroupDiscountHandler implements DiscountHandler {
 
     @Override
     public DiscountDto calculateDiscount(DiscountRequest discountRequest) {
-        if (!serviceProperties.isGroupDiscountEnabled()) return null;
-        var minQuantity = serviceProperties.getGroupDiscountMinPlaces();
-        if (discountRequest.getQuantity() < minQuantity) return null;
-        var price = discountRequest.getPrice();
-        var quantity = valueOf(discountRequest.getQuantity());
-        var discountPercent = serviceProperties.getGroupDiscountValuePercent();
-        var discountAbsolute = valueOf(serviceProperties.getGroupDiscountValueAbsolute());
-        var resultCost = price
-                .subtract(discountAbsolute)
-                .multiply(quantity)
-                .multiply(valueOf(100 - discountPercent))
-                .divide(valueOf(100), 2, RoundingMode.UP);
-        resultCost = resultCost.compareTo(ZERO) > 0 ? resultCost : ZERO;
-        var resultPrice = resultCost.divide(quantity, 2, RoundingMode.UP);
-        return DiscountDto.builder()
+        if (discountRequest.getQuantity() < minPlaces) return null;
+        return percentDiscount(discountRequest.getPrice(), discountRequest.getQuantity(), discountPercent, discountAbsolute)
                 .type(GROUP_BOOKING)
                 .status(DiscountStatus.ACTIVE)
                 .discountPercent(discountPercent)
-                .discountAbsolute(discountAbsolute.intValue())
-                .quantity(discountRequest.getQuantity())
-                .priceForOne(resultPrice)
-                .totalCost(resultCost)
+                .discountAbsolute(discountAbsolute)
                 .build();
     }
 }
@@ -9,12 +9,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.PROMO_CODE;
-import static java.math.BigDecimal.ZERO;
-import static java.math.BigDecimal.valueOf;
+import static com.samoylenko.bookingservice.service.discount.DiscountArithmetic.fullCost;
+import static com.samoylenko.bookingservice.service.discount.DiscountArithmetic.percentDiscount;
 import static org.springframework.util.StringUtils.hasText;
 
 /**
@@ -59,44 +56,22 @@ public class PromocodHandler implements DiscountHandler {
     @Override
     public DiscountDto calculateDiscount(DiscountRequest discountRequest) {
         if (!hasText(discountRequest.getCode())) return null;
-        var voucher = promotionService.getVoucherByCode(discountRequest.getCode());
+        var voucher = discountRequest.resolveVoucher(promotionService::getVoucherByCode);
         if (voucher == null) return null;
         if (!voucher.getType().equals(PROMO_CODE)) return null;
         if (!voucher.getStatus().isValid()) {
             var discountStatus = voucher.getStatus().equals(VoucherStatus.EXPIRED) ?
                     DiscountStatus.EXPIRED :
                     DiscountStatus.ALREADY_APPlIED;
-            var cost = discountRequest.getPrice().multiply(BigDecimal.valueOf(discountRequest.getQuantity()));
-            return DiscountDto.builder()
-                    .type(PROMO_CODE)
-                    .code(discountRequest.getCode())
-                    .status(discountStatus)
-                    .priceForOne(discountRequest.getPrice())
-                    .totalCost(cost)
-                    .quantity(discountRequest.getQuantity())
-                    .build();
+            return notApplied(discountRequest, discountStatus);
         }
-        var price = discountRequest.getPrice();
-        var quantity = valueOf(discountRequest.getQuantity());
-        var discountAbsolute = valueOf(voucher.getDiscountAbsolute());
-        var discountPercent = voucher.getDiscountPercent();
-
-        var resultCost = price
-                .subtract(discountAbsolute)
-                .multiply(quantity)
-                .multiply(valueOf(100 - discountPercent))
-                .divide(valueOf(100), 2, RoundingMode.UP);
-        resultCost = resultCost.compareTo(ZERO) > 0 ? resultCost : ZERO;
-        var resultPrice = resultCost.divide(quantity, 2, RoundingMode.UP);
-        return DiscountDto.builder()
+        return percentDiscount(discountRequest.getPrice(), discountRequest.getQuantity(),
+                voucher.getDiscountPercent(), voucher.getDiscountAbsolute())
                 .type(PROMO_CODE)
                 .code(discountRequest.getCode())
                 .status(DiscountStatus.ACTIVE)
                 .discountPercent(voucher.getDiscountPercent())
                 .discountAbsolute(voucher.getDiscountAbsolute())
-                .quantity(discountRequest.getQuantity())
-                .priceForOne(resultPrice)
-                .totalCost(resultCost)
                 .build();
     }
 
@@ -111,8 +86,23 @@ public class PromocodHandler implements DiscountHandler {
         if (discount == null) return null;
         if (discount.getStatus().isValid()) {
             log.info("Applying discount: {}", discount);
-            promotionService.applyVoucher(request);
+            // статус в кэше мог устареть, решает результат применения в БД
+            var status = promotionService.applyVoucher(request);
+            if (!status.isValid()) {
+                return notApplied(request, status);
+            }
         }
         return discount;
     }
+
+    private DiscountDto notApplied(DiscountRequest request, DiscountStatus status) {
+        return DiscountDto.builder()
+                .type(PROMO_CODE)
+                .code(request.getCode())
+                .status(status)
+                .priceForOne(request.getPrice())
+                .totalCost(fullCost(request.getPrice(), request.getQuantity()))
+                .quantity(request.getQuantity())
+                .build();
+    }
 }
@@ -1,34 +1,29 @@
 package com.samoylenko.bookingservice.service.discount;
 
-import com.samoylenko.bookingservice.config.ServiceProperties;
-import com.samoylenko.bookingservice.model.booking.BookingRequest;
-import com.samoylenko.bookingservice.model.booking.BookingStatus;
 import com.samoylenko.bookingservice.model.discount.DiscountDto;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountStatus;
-import com.samoylenko.bookingservice.service.BookingService;
+import com.samoylenko.bookingservice.service.ClientService;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.math.RoundingMode;
-import java.util.List;
-
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.REPEATED_BOOKING;
-import static java.math.BigDecimal.ZERO;
-import static java.math.BigDecimal.valueOf;
+import static com.samoylenko.bookingservice.service.discount.DiscountArithmetic.percentDiscount;
 
 
 /**
- * Обработчик для акции "Скидка старым клиентам"
+ * Обработчик для акции "Скидка старым клиентам".
+ * Значения акции фиксируются при сборке плана в {@link DiscountManager}.
  */
 @Slf4j
 @Getter
 @AllArgsConstructor
 public class RepeatedBookingDiscountHandler implements DiscountHandler {
     private final DiscountHandler next;
-    private final ServiceProperties serviceProperties;
-    private final BookingService bookingService;
+    private final ClientService clientService;
+    private final int discountPercent;
+    private final int discountAbsolute;
 
     @Override
     public DiscountHandler next() {
@@ -42,35 +37,14 @@ public class RepeatedBookingDiscountHandler implements DiscountHandler {
 
     @Override
     public DiscountDto calculateDiscount(DiscountRequest discountRequest) {
-        if (!serviceProperties.isRepeatedBookingDiscountEnabled()) return null;
-        var bookingRequest = BookingRequest.builder()
-                .clientPhone(discountRequest.getPhone())
-                .status(List.of(BookingStatus.COMPLETED))
-                .build();
-        var bookingPage = bookingService.getBookings(bookingRequest);
-        if (bookingPage.getTotalElements() == 0) {
+        if (!clientService.hasCompletedBookings(discountRequest.getPhone())) {
             return null;
         }
-
-        var price = discountRequest.getPrice();
-        var quantity = valueOf(discountRequest.getQuantity());
-        var discountPercent = serviceProperties.getRepeatedBookingDiscountPercent();
-        var discountAbsolute = valueOf(serviceProperties.getRepeatedBookingDiscountAbsolute());
-        var resultCost = price
-                .subtract(discountAbsolute)
-                .multiply(quantity)
-                .multiply(valueOf(100 - discountPercent))
-                .divide(valueOf(100), 2, RoundingMode.UP);
-        resultCost = resultCost.compareTo(ZERO) > 0 ? resultCost : ZERO;
-        var resultPrice = resultCost.divide(quantity, 2, RoundingMode.UP);
-        return DiscountDto.builder()
+        return percentDiscount(discountRequest.getPrice(), discountRequest.getQuantity(), discountPercent, discountAbsolute)
                 .type(REPEATED_BOOKING)
                 .status(DiscountStatus.ACTIVE)
                 .discountPercent(discountPercent)
-                .discountAbsolute(discountAbsolute.intValue())
-                .quantity(discountRequest.getQuantity())
-                .priceForOne(resultPrice)
-                .totalCost(resultCost)
+                .discountAbsolute(discountAbsolute)
                 .build();
     }
 }
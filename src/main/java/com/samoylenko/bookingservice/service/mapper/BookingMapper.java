@@ -0,0 +1,79 @@
+package com.samoylenko.bookingservice.service.mapper;
+
+import com.samoylenko.bookingservice.model.booking.AdminBookingDto;
+import com.samoylenko.bookingservice.model.booking.BookingDto;
+import com.samoylenko.bookingservice.model.booking.BookingEntity;
+import com.samoylenko.bookingservice.model.booking.BookingInfo;
+import com.samoylenko.bookingservice.model.client.ClientDto;
+import com.samoylenko.bookingservice.model.client.ClientEntity;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Преобразование бронирований и клиентов в DTO без рефлексии.
+ */
+@Component
+@AllArgsConstructor
+public class BookingMapper {
+    private final PaymentMapper paymentMapper;
+
+    public BookingDto toDto(BookingEntity entity) {
+        var walk = entity.getWalk();
+        var payment = entity.getPayment();
+        return BookingDto.builder()
+                .id(entity.getId())
+                .createdDate(entity.getCreatedDate())
+                .lastModifiedDate(entity.getLastModifiedDate())
+                .status(entity.getStatus())
+                .numberOfPeople(entity.getNumberOfPeople())
+                .endTime(entity.getEndTime())
+                .client(toClientDto(entity.getClient()))
+                .walkId(walk != null ? walk.getId() : null)
+                .walkStartTime(walk != null ? walk.getStartTime() : null)
+                .routeName(walk != null && walk.getRoute() != null ? walk.getRoute().getName() : null)
+                .totalCost(payment != null && payment.getTotalCost() != null ? payment.getTotalCost().doubleValue() : null)
+                .build();
+    }
+
+    /**
+     * Заполняет все поля, кроме сотрудников и оставшегося времени.
+     */
+    public AdminBookingDto toAdminDto(BookingEntity entity) {
+        var payment = entity.getPayment();
+        return AdminBookingDto.builder()
+                .id(entity.getId())
+                .createdDate(entity.getCreatedDate())
+                .lastModifiedDate(entity.getLastModifiedDate())
+                .status(entity.getStatus())
+                .walkId(entity.getWalk() != null ? entity.getWalk().getId() : null)
+                .numberOfPeople(entity.getNumberOfPeople())
+                .info(toInfo(entity))
+                .client(toClientDto(entity.getClient()))
+                .payment(payment != null ? paymentMapper.toDto(payment) : null)
+                .build();
+    }
+
+    public BookingInfo toInfo(BookingEntity entity) {
+        return BookingInfo.builder()
+                .comment(entity.getComment())
+                .hasChildren(Boolean.TRUE.equals(entity.getHasChildren()))
+                .agreementConfirmed(Boolean.TRUE.equals(entity.getAgreementConfirmed()))
+                .build();
+    }
+
+    public ClientDto toClientDto(ClientEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        return ClientDto.builder()
+                .id(entity.getId())
+                .createdDate(entity.getCreatedDate())
+                .lastModifiedDate(entity.getLastModifiedDate())
+                .firstName(entity.getFirstName())
+                .lastName(entity.getLastName())
+                .email(entity.getEmail())
+                .phone(entity.getPhone())
+                .dateOfBirth(entity.getDateOfBirth())
+                .build();
+    }
+}
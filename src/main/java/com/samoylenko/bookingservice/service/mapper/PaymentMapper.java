@@ -0,0 +1,67 @@
+package com.samoylenko.bookingservice.service.mapper;
+
+import com.samoylenko.bookingservice.model.discount.DiscountDto;
+import com.samoylenko.bookingservice.model.discount.DiscountRequest;
+import com.samoylenko.bookingservice.model.payment.PaymentCreateDto;
+import com.samoylenko.bookingservice.model.payment.PaymentDto;
+import com.samoylenko.bookingservice.model.payment.PaymentEntity;
+import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceDto;
+import org.springframework.stereotype.Component;
+
+/**
+ * Преобразование платежей в DTO без рефлексии.
+ */
+@Component
+public class PaymentMapper {
+
+    public PaymentDto toDto(PaymentEntity entity) {
+        return PaymentDto.builder()
+                .id(entity.getId())
+                .createdDate(entity.getCreatedDate())
+                .lastModifiedDate(entity.getLastModifiedDate())
+                .status(entity.getStatus())
+                .bookingId(entity.getBooking() != null ? entity.getBooking().getId() : null)
+                .quantity(valueOrZero(entity.getQuantity()))
+                .priceForOne(entity.getPriceForOne())
+                .totalCost(entity.getTotalCost())
+                .invoice(toInvoiceDto(entity))
+                .discount(toDiscountDto(entity))
+                .latestPaymentTime(entity.getLatestPaymentTime())
+                .build();
+    }
+
+    public InvoiceDto toInvoiceDto(PaymentEntity entity) {
+        return InvoiceDto.builder()
+                .invoiceId(entity.getInvoiceId())
+                .invoiceUrl(entity.getInvoiceUrl())
+                .latestPaymentTime(entity.getLatestPaymentTime())
+                .build();
+    }
+
+    public DiscountDto toDiscountDto(PaymentEntity entity) {
+        return DiscountDto.builder()
+                .type(entity.getDiscountType())
+                .status(entity.getDiscountStatus())
+                .code(entity.getDiscountCode())
+                .priceForOne(entity.getPriceForOne())
+                .totalCost(entity.getTotalCost())
+                .quantity(entity.getQuantity())
+                .discountPercent(valueOrZero(entity.getDiscountPercent()))
+                .discountAbsolute(valueOrZero(entity.getDiscountAbsolute()))
+                .build();
+    }
+
+    public DiscountRequest toDiscountRequest(PaymentCreateDto createDto) {
+        return DiscountRequest.builder()
+                .code(createDto.getVoucher())
+                .quantity(createDto.getQuantity())
+                .routeId(createDto.getRouteId())
+                .price(createDto.getPriceForOne())
+                .phone(createDto.getClient() != null ? createDto.getClient().getPhone() : null)
+                .build();
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,88 @@
+package com.samoylenko.bookingservice.service.mapper;
+
+import com.samoylenko.bookingservice.model.booking.AdminBookingDto;
+import com.samoylenko.bookingservice.model.route.RouteDto;
+import com.samoylenko.bookingservice.model.route.RouteEntity;
+import com.samoylenko.bookingservice.model.walk.CompositeAdminWalkDto;
+import com.samoylenko.bookingservice.model.walk.CompositeUserWalkDto;
+import com.samoylenko.bookingservice.model.walk.WalkDto;
+import com.samoylenko.bookingservice.model.walk.WalkEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Преобразование прогулок в DTO без рефлексии. Свободные места считаются как maxPlaces - reservedPlaces.
+ */
+@Component
+public class WalkMapper {
+
+    public WalkDto toDto(WalkEntity entity) {
+        return WalkDto.builder()
+                .id(entity.getId())
+                .routeId(entity.getRoute() != null ? entity.getRoute().getId() : null)
+                .status(entity.getStatus())
+                .maxPlaces(entity.getMaxPlaces())
+                .availablePlaces(availablePlaces(entity))
+                .reservedPlaces(entity.getReservedPlaces())
+                .priceForOne(entity.getPriceForOne())
+                .duration(entity.getDuration())
+                .startTime(entity.getStartTime())
+                .endTime(entity.getEndTime())
+                .version(entity.getVersion())
+                .build();
+    }
+
+    public CompositeAdminWalkDto toAdminDto(WalkEntity entity, List<AdminBookingDto> bookings) {
+        return CompositeAdminWalkDto.builder()
+                .id(entity.getId())
+                .availablePlaces(availablePlaces(entity))
+                .priceForOne(entity.getPriceForOne())
+                .duration(entity.getDuration())
+                .startTime(entity.getStartTime())
+                .endTime(entity.getEndTime())
+                .route(toRouteDto(entity.getRoute()))
+                .status(entity.getStatus())
+                .createdDate(entity.getCreatedDate())
+                .lastModifiedDate(entity.getLastModifiedDate())
+                .maxPlaces(entity.getMaxPlaces())
+                .reservedPlaces(entity.getReservedPlaces())
+                .bookings(bookings)
+                .build();
+    }
+
+    public CompositeUserWalkDto toUserDto(WalkEntity entity) {
+        return CompositeUserWalkDto.builder()
+                .id(entity.getId())
+                .route(toRouteDto(entity.getRoute()))
+                .availablePlaces(availablePlaces(entity))
+                .priceForOne(entity.getPriceForOne())
+                .duration(entity.getDuration())
+                .startTime(entity.getStartTime())
+                .endTime(entity.getEndTime())
+                .version(entity.getVersion())
+                .build();
+    }
+
+    public RouteDto toRouteDto(RouteEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        return RouteDto.builder()
+                .id(entity.getId())
+                .createdDate(entity.getCreatedDate())
+                .lastModifiedDate(entity.getLastModifiedDate())
+                .name(entity.getName())
+                .description(entity.getDescription())
+                .priceForOne(entity.getPriceForOne())
+                .version(entity.getVersion())
+                .build();
+    }
+
+    private static Integer availablePlaces(WalkEntity entity) {
+        if (entity.getMaxPlaces() == null || entity.getReservedPlaces() == null) {
+            return entity.getAvailablePlaces();
+        }
+        return entity.getMaxPlaces() - entity.getReservedPlaces();
+    }
+}
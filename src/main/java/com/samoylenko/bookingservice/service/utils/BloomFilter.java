@@ -0,0 +1,64 @@
+package com.samoylenko.bookingservice.service.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для строк. Ложноотрицательных ответов нет: если mightContain вернул false, строка не добавлялась.
+ * Биты только устанавливаются, поэтому put и mightContain безопасны при одновременных вызовах.
+ */
+public final class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions ожидаемое число элементов
+     * @param falsePositiveRate  допустимая доля ложноположительных ответов при expectedInsertions элементах
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter parameters: %d, %f".formatted(expectedInsertions, falsePositiveRate));
+        }
+        var optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        var words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(CharSequence value) {
+        var hash1 = hash(value);
+        var hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            var index = Math.floorMod(hash1 + i * hash2, bitCount);
+            bits.accumulateAndGet((int) (index >>> 6), 1L << index, (word, mask) -> word | mask);
+        }
+    }
+
+    public boolean mightContain(CharSequence value) {
+        var hash1 = hash(value);
+        var hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            var index = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(CharSequence value) {
+        // FNV-1a по символам с финальным перемешиванием
+        var hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -3,6 +3,8 @@ package com.samoylenko.bookingservice.service.utils;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Service
 public class CodeGenerator {
@@ -19,4 +21,15 @@ public class CodeGenerator {
         }
         return sb.toString();
     }
+
+    /**
+     * Набор из count различных кодов, уникальность проверяется в памяти.
+     */
+    public Set<String> getCodes(int count) {
+        var codes = new LinkedHashSet<String>(count * 2);
+        while (codes.size() < count) {
+            codes.add(getCode());
+        }
+        return codes;
+    }
 }
@@ -0,0 +1,54 @@
+package com.samoylenko.bookingservice.service.utils;
+
+import com.samoylenko.bookingservice.config.PayKeeperProperties;
+import com.samoylenko.bookingservice.model.payment.paykeeper.PaymentNotification;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Подпись уведомлений PayKeeper: key = md5(id + sum + clientid + orderid + secret),
+ * в ответ ожидается строка "OK " + md5(id + secret).
+ */
+@Component
+@AllArgsConstructor
+public class PayKeeperSignature {
+    private final PayKeeperProperties properties;
+
+    public String sign(PaymentNotification notification) {
+        var sum = notification.getSum().setScale(2, RoundingMode.HALF_UP).toPlainString();
+        return md5(notification.getId() + sum + nullToEmpty(notification.getClientId())
+                + notification.getOrderId() + properties.getNotificationSecret());
+    }
+
+    public boolean isValid(PaymentNotification notification) {
+        if (notification.getKey() == null) {
+            return false;
+        }
+        var expected = sign(notification).getBytes(StandardCharsets.US_ASCII);
+        var actual = notification.getKey().toLowerCase().getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    public String response(String paymentId) {
+        return "OK " + md5(paymentId + properties.getNotificationSecret());
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String md5(String value) {
+        try {
+            var digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
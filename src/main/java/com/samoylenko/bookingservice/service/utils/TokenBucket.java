@@ -0,0 +1,52 @@
+package com.samoylenko.bookingservice.service.utils;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Ограничитель частоты вызовов: не более permitsPerSecond разрешений в секунду с запасом в capacity.
+ * Использует ReentrantLock, чтобы не закреплять виртуальные потоки за несущими.
+ */
+public class TokenBucket {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(int permitsPerSecond, int capacity) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) permitsPerSecond / SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            lock.lock();
+            try {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            } finally {
+                lock.unlock();
+            }
+            NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        var now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,192 @@
+package com.samoylenko.bookingservice.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samoylenko.bookingservice.config.PayKeeperSimulatorProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Встраиваемый имитатор API PayKeeper для локальных и нагрузочных тестов.
+ * Реализует получение токена, создание счета и получение информации о счете
+ * с настраиваемой задержкой, долей ошибок и оплатой счета через paidAfter после создания.
+ */
+@Slf4j
+public class PayKeeperSimulator {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private final PayKeeperSimulatorProperties properties;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Invoice> invoices = new ConcurrentHashMap<>();
+    private final AtomicLong invoiceSequence = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PayKeeperSimulator(PayKeeperSimulatorProperties properties) {
+        this.properties = properties;
+    }
+
+    public void start() throws IOException {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", properties.getPort()), 0);
+        server.setExecutor(executor);
+        server.createContext("/info/settings/token/", exchange -> handle(exchange, this::token));
+        server.createContext("/change/invoice/preview/", exchange -> handle(exchange, this::createInvoice));
+        server.createContext("/info/invoice/byid/", exchange -> handle(exchange, this::invoiceInfo));
+        server.createContext("/info/payments/byid/", exchange -> handle(exchange, this::paymentInfo));
+        server.start();
+        log.info("PayKeeper simulator started on {}", getBaseUrl());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+            log.info("PayKeeper simulator stopped");
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public int getInvoiceCount() {
+        return invoices.size();
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            sleep(nextLatency());
+            if (ThreadLocalRandom.current().nextDouble() < properties.getErrorRate()) {
+                respond(exchange, 500, Map.of("result", "fail", "msg", "Simulated failure"));
+                return;
+            }
+            var body = handler.handle(exchange);
+            if (body == null) {
+                respond(exchange, 404, Map.of("result", "fail", "msg", "Not found"));
+            } else {
+                respond(exchange, 200, body);
+            }
+        } catch (Exception e) {
+            log.error("PayKeeper simulator failed to handle {}", exchange.getRequestURI(), e);
+            respond(exchange, 500, Map.of("result", "fail", "msg", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private Object token(HttpExchange exchange) {
+        return Map.of("token", UUID.randomUUID().toString());
+    }
+
+    private Object createInvoice(HttpExchange exchange) throws IOException {
+        var form = parseQuery(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        var id = Instant.now().toEpochMilli() + "" + invoiceSequence.incrementAndGet();
+        var invoice = new Invoice(id, form.get("orderid"), form.get("clientid"), form.get("client_email"),
+                form.get("client_phone"), form.get("pay_amount"), Instant.now());
+        invoices.put(id, invoice);
+        return Map.of("invoice_id", id, "invoice_url", getBaseUrl() + "/bill/" + id + "/");
+    }
+
+    private Object invoiceInfo(HttpExchange exchange) {
+        var invoice = invoices.get(parseQuery(exchange.getRequestURI().getRawQuery()).get("id"));
+        if (invoice == null) {
+            return null;
+        }
+        var paidTime = paidTime(invoice);
+        var body = new LinkedHashMap<String, Object>();
+        body.put("id", invoice.id());
+        body.put("user_id", properties.getPort().toString());
+        body.put("status", paidTime != null ? "paid" : "created");
+        body.put("pay_amount", invoice.payAmount());
+        body.put("clientid", invoice.clientId());
+        body.put("client_email", invoice.clientEmail());
+        body.put("client_phone", invoice.clientPhone());
+        body.put("orderid", invoice.orderId());
+        body.put("paymentid", paidTime != null ? invoice.id() : null);
+        body.put("service_name", "");
+        body.put("created_datetime", DATE_FORMAT.format(invoice.createdAt()));
+        body.put("paid_datetime", paidTime != null ? DATE_FORMAT.format(paidTime) : null);
+        return body;
+    }
+
+    private Object paymentInfo(HttpExchange exchange) {
+        var id = parseQuery(exchange.getRequestURI().getRawQuery()).get("id");
+        return invoices.values().stream()
+                .filter(invoice -> invoice.id().equals(id) && paidTime(invoice) != null)
+                .map(invoice -> Map.of("id", invoice.id(), "orderid", invoice.orderId(), "pay_amount", invoice.payAmount()))
+                .toList();
+    }
+
+    private Instant paidTime(Invoice invoice) {
+        if (properties.getPaidAfter() == null) {
+            return null;
+        }
+        var paidTime = invoice.createdAt().plus(properties.getPaidAfter());
+        return paidTime.isAfter(Instant.now()) ? null : paidTime;
+    }
+
+    private Duration nextLatency() {
+        var latency = properties.getLatency().toNanos();
+        var random = ThreadLocalRandom.current();
+        var nanos = switch (properties.getLatencyDistribution()) {
+            case FIXED -> latency;
+            case UNIFORM -> latency + (long) ((random.nextDouble() * 2 - 1) * properties.getLatencyJitter().toNanos());
+            case LOG_NORMAL -> (long) (latency * Math.exp(properties.getLatencySigma() * random.nextGaussian()));
+        };
+        return Duration.ofNanos(Math.max(nanos, 0));
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        var bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(Duration duration) throws InterruptedException {
+        if (!duration.isZero()) {
+            Thread.sleep(duration);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        var params = new HashMap<String, String>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (var pair : List.of(query.split("&"))) {
+            var separator = pair.indexOf('=');
+            var key = separator < 0 ? pair : pair.substring(0, separator);
+            var value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(HttpExchange exchange) throws Exception;
+    }
+
+    private record Invoice(String id, String orderId, String clientId, String clientEmail,
+                           String clientPhone, String payAmount, Instant createdAt) {
+    }
+}
@@ -0,0 +1,131 @@
+-- Схема, которую до появления миграций создавал Hibernate.
+-- Существующие базы принимаются за эту версию (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE route
+(
+    id                 varchar(255) NOT NULL PRIMARY KEY,
+    version            integer,
+    created_date       timestamp(6) with time zone,
+    last_modified_date timestamp(6) with time zone,
+    deleted            boolean      NOT NULL,
+    name               varchar(255),
+    description        varchar(255),
+    service_name       varchar(255),
+    price_for_one      integer
+);
+
+CREATE TABLE walk
+(
+    id                 varchar(255)                NOT NULL PRIMARY KEY,
+    version            integer,
+    created_date       timestamp(6) with time zone,
+    last_modified_date timestamp(6) with time zone,
+    deleted            boolean                     NOT NULL,
+    route_id           varchar(255)                NOT NULL REFERENCES route,
+    status             smallint CHECK (status BETWEEN 0 AND 6),
+    max_places         integer                     NOT NULL,
+    reserved_places    integer                     NOT NULL,
+    available_places   integer                     NOT NULL,
+    price_for_one      integer                     NOT NULL,
+    duration           integer                     NOT NULL,
+    start_time         timestamp(6) with time zone NOT NULL,
+    end_time           timestamp(6) with time zone NOT NULL
+);
+
+CREATE TABLE client
+(
+    id                 varchar(255) NOT NULL PRIMARY KEY,
+    version            integer,
+    created_date       timestamp(6) with time zone,
+    last_modified_date timestamp(6) with time zone,
+    deleted            boolean      NOT NULL,
+    first_name         varchar(255) NOT NULL,
+    last_name          varchar(255) NOT NULL,
+    email              varchar(255) NOT NULL,
+    phone              varchar(255) NOT NULL UNIQUE,
+    date_of_birth      date         NOT NULL
+);
+
+CREATE TABLE employee
+(
+    id                      varchar(255) NOT NULL PRIMARY KEY,
+    version                 integer,
+    created_date            timestamp(6) with time zone,
+    last_modified_date      timestamp(6) with time zone,
+    deleted                 boolean      NOT NULL,
+    first_name              varchar(255),
+    last_name               varchar(255),
+    email                   varchar(255) NOT NULL UNIQUE,
+    phone                   varchar(255) UNIQUE,
+    password                varchar(255) NOT NULL,
+    roles                   smallint[],
+    account_non_expired     boolean      NOT NULL,
+    account_non_locked      boolean      NOT NULL,
+    credentials_non_expired boolean      NOT NULL,
+    enabled                 boolean      NOT NULL
+);
+
+CREATE TABLE voucher
+(
+    id                 varchar(255) NOT NULL PRIMARY KEY,
+    version            integer,
+    created_date       timestamp(6) with time zone,
+    last_modified_date timestamp(6) with time zone,
+    deleted            boolean      NOT NULL,
+    code               varchar(255) NOT NULL UNIQUE,
+    type               smallint     NOT NULL CHECK (type BETWEEN 0 AND 4),
+    status             smallint     NOT NULL CHECK (status BETWEEN 0 AND 2),
+    discount_percent   integer      NOT NULL,
+    discount_absolute  integer      NOT NULL,
+    count              integer      NOT NULL,
+    distributor        varchar(255),
+    route_id           varchar(255),
+    expired_at         timestamp(6) with time zone
+);
+
+CREATE TABLE payment
+(
+    id                  varchar(255)   NOT NULL PRIMARY KEY,
+    version             integer,
+    created_date        timestamp(6) with time zone,
+    last_modified_date  timestamp(6) with time zone,
+    deleted             boolean        NOT NULL,
+    payment_status      smallint       NOT NULL CHECK (payment_status BETWEEN 0 AND 4),
+    quantity            integer        NOT NULL,
+    pricae_for_one      numeric(38, 2) NOT NULL,
+    total_cost          numeric(38, 2) NOT NULL,
+    discount_type       smallint       NOT NULL CHECK (discount_type BETWEEN 0 AND 4),
+    discount_status     smallint       NOT NULL CHECK (discount_status BETWEEN 0 AND 4),
+    discount_code       varchar(255),
+    discount_percent    integer        NOT NULL,
+    discount_absolute   integer        NOT NULL,
+    invoice_url         varchar(255),
+    invoice_id          varchar(255),
+    latest_payment_time timestamp(6) with time zone,
+    voucher_id          varchar(255) REFERENCES voucher
+);
+
+CREATE TABLE booking
+(
+    id                  varchar(255) NOT NULL PRIMARY KEY,
+    version             integer,
+    created_date        timestamp(6) with time zone,
+    last_modified_date  timestamp(6) with time zone,
+    deleted             boolean      NOT NULL,
+    status              smallint CHECK (status BETWEEN 0 AND 6),
+    walk_id             varchar(255) REFERENCES walk,
+    client_id           varchar(255) NOT NULL REFERENCES client,
+    payment_id          varchar(255) UNIQUE REFERENCES payment,
+    number_of_people    integer,
+    comment             varchar(255),
+    has_children        boolean,
+    agreement_confirmed boolean,
+    end_time            timestamp(6) with time zone
+);
+
+CREATE TABLE booking_employee
+(
+    booking_id  varchar(255) NOT NULL REFERENCES booking,
+    employee_id varchar(255) NOT NULL REFERENCES employee,
+    PRIMARY KEY (booking_id, employee_id)
+);
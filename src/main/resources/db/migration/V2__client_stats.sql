@@ -0,0 +1,19 @@
+-- таблица могла быть создана вручную для сборки, в которой статистика появилась раньше миграций
+CREATE TABLE IF NOT EXISTS client_stats
+(
+    client_id          varchar(255)                NOT NULL PRIMARY KEY REFERENCES client ON DELETE CASCADE,
+    completed_bookings integer                     NOT NULL,
+    total_spent        numeric(38, 2)              NOT NULL,
+    last_visit         timestamp(6) with time zone,
+    last_modified_date timestamp(6) with time zone NOT NULL
+);
+
+-- статистика по бронированиям, выполненным до появления таблицы
+INSERT INTO client_stats (client_id, completed_bookings, total_spent, last_visit, last_modified_date)
+SELECT b.client_id, count(*), coalesce(sum(p.total_cost), 0), max(w.start_time), now()
+FROM booking b
+         JOIN walk w ON w.id = b.walk_id
+         LEFT JOIN payment p ON p.id = b.payment_id
+WHERE b.status = 6 -- COMPLETED
+GROUP BY b.client_id
+ON CONFLICT (client_id) DO NOTHING;
@@ -0,0 +1,26 @@
+-- Индексы под предикаты WalkSpecification, BookingSpecification и запросы планировщика.
+-- Составные индексы заканчиваются на id там, где по ним идет keyset-пагинация (поле, id).
+
+-- Списки прогулок по умолчанию отсортированы по времени начала
+CREATE INDEX idx_walk_start_time ON walk (start_time, id);
+-- Админский список и планировщик: статус + время начала/окончания
+CREATE INDEX idx_walk_status_start_time ON walk (status, start_time, id);
+CREATE INDEX idx_walk_status_end_time ON walk (status, end_time);
+-- Пользовательский список по маршруту: удаленные прогулки не попадают в выдачу
+CREATE INDEX idx_walk_route_start_time ON walk (route_id, start_time, id) WHERE NOT deleted;
+
+-- Просрочка бронирований и дедлайны
+CREATE INDEX idx_booking_status_end_time ON booking (status, end_time);
+-- Бронирования прогулки и их перевод в COMPLETED
+CREATE INDEX idx_booking_walk_status ON booking (walk_id, status);
+CREATE INDEX idx_booking_client ON booking (client_id);
+-- Список бронирований отсортирован по дате изменения
+CREATE INDEX idx_booking_last_modified_date ON booking (last_modified_date, id);
+CREATE INDEX idx_booking_employee_employee ON booking_employee (employee_id);
+
+-- Опрос ожидающих оплаты счетов
+CREATE INDEX idx_payment_status ON payment (payment_status);
+CREATE INDEX idx_payment_voucher ON payment (voucher_id);
+
+-- Поиск ваучеров по статусу и сроку действия
+CREATE INDEX idx_voucher_status_expired_at ON voucher (status, expired_at);
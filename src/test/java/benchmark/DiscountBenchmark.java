@@ -0,0 +1,89 @@
+package benchmark;
+
+import com.samoylenko.bookingservice.config.ServiceProperties;
+import com.samoylenko.bookingservice.model.discount.DiscountDto;
+import com.samoylenko.bookingservice.model.discount.DiscountRequest;
+import com.samoylenko.bookingservice.model.discount.DiscountStatus;
+import com.samoylenko.bookingservice.service.discount.GroupDiscountHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import static com.samoylenko.bookingservice.model.voucher.DiscountType.GROUP_BOOKING;
+import static java.math.BigDecimal.ZERO;
+import static java.math.BigDecimal.valueOf;
+
+/**
+ * Сравнение расчета групповой скидки через BigDecimal (прежняя реализация) с расчетом в целых копейках.
+ * Запускается методом main с тестовым classpath, например из IDE.
+ * Аллокации на операцию выводит профилировщик gc (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscountBenchmark {
+    private ServiceProperties properties;
+    private GroupDiscountHandler groupDiscountHandler;
+    private DiscountRequest request;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DiscountBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        properties = new ServiceProperties();
+        properties.setGroupDiscountEnabled(true);
+        properties.setGroupDiscountMinPlaces(5);
+        properties.setGroupDiscountValuePercent(15);
+        properties.setGroupDiscountValueAbsolute(0);
+        groupDiscountHandler = new GroupDiscountHandler(null,
+                properties.getGroupDiscountMinPlaces(),
+                properties.getGroupDiscountValuePercent(),
+                properties.getGroupDiscountValueAbsolute());
+        request = DiscountRequest.builder()
+                .quantity(7)
+                .price(new BigDecimal("2833.33"))
+                .build();
+    }
+
+    @Benchmark
+    public DiscountDto groupDiscountBigDecimal() {
+        var price = request.getPrice();
+        var quantity = valueOf(request.getQuantity());
+        var discountPercent = properties.getGroupDiscountValuePercent();
+        var discountAbsolute = valueOf(properties.getGroupDiscountValueAbsolute());
+        var resultCost = price
+                .subtract(discountAbsolute)
+                .multiply(quantity)
+                .multiply(valueOf(100 - discountPercent))
+                .divide(valueOf(100), 2, RoundingMode.UP);
+        resultCost = resultCost.compareTo(ZERO) > 0 ? resultCost : ZERO;
+        var resultPrice = resultCost.divide(quantity, 2, RoundingMode.UP);
+        return DiscountDto.builder()
+                .type(GROUP_BOOKING)
+                .status(DiscountStatus.ACTIVE)
+                .discountPercent(discountPercent)
+                .discountAbsolute(discountAbsolute.intValue())
+                .quantity(request.getQuantity())
+                .priceForOne(resultPrice)
+                .totalCost(resultCost)
+                .build();
+    }
+
+    @Benchmark
+    public DiscountDto groupDiscountKopecks() {
+        return groupDiscountHandler.calculateDiscount(request);
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import com.samoylenko.bookingservice.model.booking.BookingDto;
+import com.samoylenko.bookingservice.model.booking.BookingEntity;
+import com.samoylenko.bookingservice.model.discount.DiscountDto;
+import com.samoylenko.bookingservice.model.entity.*;
+import com.samoylenko.bookingservice.model.payment.PaymentDto;
+import com.samoylenko.bookingservice.model.payment.PaymentEntity;
+import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceDto;
+import com.samoylenko.bookingservice.model.walk.WalkDto;
+import com.samoylenko.bookingservice.model.walk.WalkEntity;
+import com.samoylenko.bookingservice.service.mapper.BookingMapper;
+import com.samoylenko.bookingservice.service.mapper.PaymentMapper;
+import com.samoylenko.bookingservice.service.mapper.WalkMapper;
+import org.modelmapper.Converter;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение ModelMapper с ручными мапперами на DTO списков прогулок, бронирований и платежей.
+ * Запускается методом main с тестовым classpath, например из IDE.
+ * Аллокации на операцию выводит профилировщик gc (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private ModelMapper modelMapper;
+    private WalkMapper walkMapper;
+    private BookingMapper bookingMapper;
+    private PaymentMapper paymentMapper;
+    private WalkEntity walk;
+    private BookingEntity booking;
+    private PaymentEntity payment;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        Converter<WalkEntity, Integer> toAvailablePlaces = c -> c.getSource().getMaxPlaces() - c.getSource().getReservedPlaces();
+        modelMapper.createTypeMap(WalkEntity.class, WalkDto.class)
+                .addMappings(mapper -> mapper.map(src -> src.getRoute().getId(), WalkDto::setRouteId))
+                .addMappings(mapper -> mapper.using(toAvailablePlaces).map(src -> src, WalkDto::setAvailablePlaces));
+        modelMapper.createTypeMap(BookingEntity.class, BookingDto.class)
+                .addMappings(mapper -> mapper.map(src -> src.getWalk().getId(), BookingDto::setWalkId))
+                .addMappings(mapper -> mapper.map(src -> src.getWalk().getStartTime(), BookingDto::setWalkStartTime))
+                .addMappings(mapper -> mapper.map(src -> src.getWalk().getRoute().getName(), BookingDto::setRouteName))
+                .addMappings(mapper -> mapper.map(src -> src.getPayment().getTotalCost(), BookingDto::setTotalCost));
+        modelMapper.createTypeMap(PaymentEntity.class, PaymentDto.class)
+                .addMappings(mapper -> mapper.map(src -> src.getBooking().getId(), PaymentDto::setBookingId));
+        modelMapper.createTypeMap(PaymentEntity.class, InvoiceDto.class);
+        modelMapper.createTypeMap(PaymentEntity.class, DiscountDto.class)
+                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountType, DiscountDto::setType))
+                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountStatus, DiscountDto::setStatus))
+                .addMappings(mapper -> mapper.map(PaymentEntity::getDiscountCode, DiscountDto::setCode));
+
+        paymentMapper = new PaymentMapper();
+        walkMapper = new WalkMapper();
+        bookingMapper = new BookingMapper(paymentMapper);
+
+        var route = DefaultRouteEntityBuilder.of().build();
+        route.setId(UUID.randomUUID().toString());
+        walk = DefaultWalkEntityBuilder.of().withRoute(route).build();
+        walk.setId(UUID.randomUUID().toString());
+        var client = DefaultClientEntityBuilder.of().build();
+        client.setId(UUID.randomUUID().toString());
+        payment = DefaultPaymentEntityBuilder.of().build();
+        payment.setId(UUID.randomUUID().toString());
+        booking = DefaultBookingEntityBuilder.of().withWalk(walk).withClient(client).withPayment(payment).build();
+        booking.setId(UUID.randomUUID().toString());
+        payment.setBooking(booking);
+    }
+
+    @Benchmark
+    public WalkDto walkModelMapper() {
+        return modelMapper.map(walk, WalkDto.class);
+    }
+
+    @Benchmark
+    public WalkDto walkMapper() {
+        return walkMapper.toDto(walk);
+    }
+
+    @Benchmark
+    public BookingDto bookingModelMapper() {
+        return modelMapper.map(booking, BookingDto.class);
+    }
+
+    @Benchmark
+    public BookingDto bookingMapper() {
+        return bookingMapper.toDto(booking);
+    }
+
+    @Benchmark
+    public PaymentDto paymentModelMapper() {
+        var dto = modelMapper.map(payment, PaymentDto.class);
+        dto.setInvoice(modelMapper.map(payment, InvoiceDto.class));
+        dto.setDiscount(modelMapper.map(payment, DiscountDto.class));
+        return dto;
+    }
+
+    @Benchmark
+    public PaymentDto paymentMapper() {
+        return paymentMapper.toDto(payment);
+    }
+}
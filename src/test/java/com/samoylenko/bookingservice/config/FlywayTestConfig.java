@@ -0,0 +1,21 @@
+package com.samoylenko.bookingservice.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Тестовая схема каждый раз собирается миграциями с нуля, как раньше ее пересоздавал Hibernate.
+ */
+@Profile("test")
+@Configuration
+public class FlywayTestConfig {
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
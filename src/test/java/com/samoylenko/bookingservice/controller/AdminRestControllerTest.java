@@ -6,11 +6,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -85,4 +88,86 @@ public class AdminRestControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void scrollUserWalks_withInvalidSize_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/walks/scroll").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/walks/scroll").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/walks/scroll").param("size", "101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/walks/scroll").param("size", "100"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void scrollAdminWalksAndBookings_withInvalidSize_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/walks/scroll").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/admin/bookings/scroll").param("size", "101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/admin/walks/scroll").param("size", "5"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getUserWalks_withMatchingETag_shouldReturnNotModified() throws Exception {
+        var etag = mockMvc.perform(get("/api/v1/walks"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/walks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/v1/walks").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getRoutes_withMatchingETag_shouldReturnNotModified() throws Exception {
+        var etag = mockMvc.perform(get("/api/v1/routes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/routes").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/routes").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    public void createVouchers_shouldStreamProgress() throws Exception {
+        var body = """
+                {
+                  "type": "Промокод",
+                  "discountPercent": 10
+                }
+                """;
+        var result = mockMvc.perform(post("/api/v1/admin/vouchers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("count", "3")
+                        .characterEncoding("UTF-8")
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"created\":3,\"total\":3")));
+    }
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    public void createVouchers_withInvalidCount_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/vouchers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("count", "0")
+                        .characterEncoding("UTF-8")
+                        .content("{\"type\": \"Промокод\"}"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -5,6 +5,7 @@ import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.payment.PaymentEntity;
 import com.samoylenko.bookingservice.model.payment.PaymentStatus;
 import com.samoylenko.bookingservice.model.voucher.DiscountType;
+import com.samoylenko.bookingservice.model.voucher.VoucherEntity;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.With;
@@ -28,6 +29,10 @@ public class DefaultPaymentEntityBuilder implements DefaultEntityBuilder<Payment
     private String invoiceUrl = "test-invoice-url";
     private Integer discountAbsolute = 0;
     private Integer discountPercent = 0;
+    private DiscountType discountType = DiscountType.NONE;
+    private DiscountStatus discountStatus = DiscountStatus.NONE;
+    private String discountCode;
+    private VoucherEntity voucher;
 
     @Override
     public PaymentEntity build() {
@@ -42,8 +47,10 @@ public class DefaultPaymentEntityBuilder implements DefaultEntityBuilder<Payment
                 .invoiceUrl(invoiceUrl)
                 .discountAbsolute(discountAbsolute)
                 .discountPercent(discountPercent)
-                .discountType(DiscountType.NONE)
-                .discountStatus(DiscountStatus.NONE)
+                .discountType(discountType)
+                .discountStatus(discountStatus)
+                .discountCode(discountCode)
+                .voucher(voucher)
                 .build();
     }
 }
@@ -0,0 +1,159 @@
+package com.samoylenko.bookingservice.repository;
+
+import com.samoylenko.bookingservice.model.booking.BookingSpecification;
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
+import com.samoylenko.bookingservice.model.walk.WalkSpecification;
+import com.samoylenko.bookingservice.model.walk.WalkStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет по EXPLAIN, что запросы спецификаций на заполненной базе идут через индексы из миграций.
+ * Значения подставляются в SQL литералами, чтобы перехваченный запрос можно было выполнить под EXPLAIN как есть.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.samoylenko.bookingservice.repository.QueryPlanTest$SqlCapture",
+        "spring.jpa.show-sql=false"
+})
+public class QueryPlanTest extends BaseRepositoryTest {
+    private static final Instant JUNE = Instant.parse("2024-06-01T00:00:00Z");
+    private static final Instant JULY = Instant.parse("2024-07-01T00:00:00Z");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private WalkRepository walkRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        truncate();
+        jdbcTemplate.execute("""
+                INSERT INTO route (id, version, deleted, name, price_for_one)
+                SELECT 'route-' || g, 0, false, 'Route ' || g, 3500
+                FROM generate_series(1, 50) g
+                """);
+        // 1% прогулок с открытой записью, остальные завершены; часть помечена удаленными
+        jdbcTemplate.execute("""
+                INSERT INTO walk (id, version, deleted, route_id, status, max_places, reserved_places,
+                                  available_places, price_for_one, duration, start_time, end_time)
+                SELECT 'walk-' || g, 0, g %% 97 = 0, 'route-' || (g %% 50 + 1),
+                       CASE WHEN g %% 100 = 0 THEN %d ELSE %d END,
+                       20, 0, 20, 3500, 120,
+                       timestamptz '2024-01-01 00:00:00+00' + g * interval '1 hour',
+                       timestamptz '2024-01-01 02:00:00+00' + g * interval '1 hour'
+                FROM generate_series(1, 20000) g
+                """.formatted(WalkStatus.BOOKING_IN_PROGRESS.ordinal(), WalkStatus.FINISHED.ordinal()));
+        jdbcTemplate.execute("""
+                INSERT INTO client (id, version, deleted, first_name, last_name, email, phone, date_of_birth)
+                SELECT 'client-' || g, 0, false, 'Name', 'Surname', 'client' || g || '@test.ru',
+                       '+7900' || lpad(g::text, 7, '0'), date '1990-01-01'
+                FROM generate_series(1, 5000) g
+                """);
+        // 1% активных и 1% оплаченных бронирований, остальные выполнены
+        jdbcTemplate.execute("""
+                INSERT INTO booking (id, version, deleted, status, walk_id, client_id, number_of_people,
+                                     end_time, last_modified_date)
+                SELECT 'booking-' || g, 0, false,
+                       CASE g %% 100 WHEN 0 THEN %d WHEN 1 THEN %d ELSE %d END,
+                       'walk-' || (g %% 20000 + 1), 'client-' || (g %% 5000 + 1), 1,
+                       timestamptz '2024-01-01 00:00:00+00' + g * interval '1 minute',
+                       timestamptz '2024-01-01 00:00:00+00' + g * interval '1 minute'
+                FROM generate_series(1, 50000) g
+                """.formatted(BookingStatus.ACTIVE.ordinal(), BookingStatus.PAID.ordinal(), BookingStatus.COMPLETED.ordinal()));
+        jdbcTemplate.execute("ANALYZE route, walk, client, booking");
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        truncate();
+    }
+
+    @Test
+    void walksForUser_byRouteAndStatus_shouldUseIndex() {
+        walkRepository.findAll(WalkSpecification.withRoute("route-7")
+                        .and(WalkSpecification.withStatus(WalkStatus.BOOKING_IN_PROGRESS))
+                        .and(WalkSpecification.startTimeAfter(JUNE)),
+                Sort.by("startTime", "id"));
+
+        assertThat(explainLast("walk")).contains("idx_walk_").doesNotContain("Seq Scan on walk");
+    }
+
+    @Test
+    void walksForAdmin_byStatus_shouldUseIndex() {
+        walkRepository.findAll(WalkSpecification.withStatus(WalkStatus.BOOKING_IN_PROGRESS)
+                        .and(WalkSpecification.withRoute(null)),
+                Sort.by("startTime", "id"));
+
+        assertThat(explainLast("walk")).contains("idx_walk_status_").doesNotContain("Seq Scan on walk");
+    }
+
+    @Test
+    void walksForAdmin_byStartTimeRange_shouldUseIndex() {
+        walkRepository.findAll(WalkSpecification.startTimeAfter(JUNE)
+                        .and(WalkSpecification.startTimeBefore(JULY)),
+                Sort.by("startTime", "id"));
+
+        assertThat(explainLast("walk")).contains("idx_walk_start_time").doesNotContain("Seq Scan on walk");
+    }
+
+    @Test
+    void bookings_byWalkAndStatus_shouldUseIndex() {
+        bookingRepository.findAll(BookingSpecification.withWalk("walk-10")
+                .and(BookingSpecification.withStatus(List.of(BookingStatus.PAID))));
+
+        assertThat(explainLast("booking")).contains("idx_booking_walk_status").doesNotContain("Seq Scan on booking");
+    }
+
+    @Test
+    void bookings_byClient_shouldUseIndex() {
+        bookingRepository.findAll(BookingSpecification.withClientId("client-10"));
+
+        assertThat(explainLast("booking")).contains("idx_booking_client").doesNotContain("Seq Scan on booking");
+    }
+
+    @Test
+    void bookings_byStatus_shouldUseIndex() {
+        bookingRepository.findAll(BookingSpecification.withStatus(
+                List.of(BookingStatus.ACTIVE, BookingStatus.WAITING_FOR_PAYMENT)));
+
+        assertThat(explainLast("booking")).contains("idx_booking_status_end_time").doesNotContain("Seq Scan on booking");
+    }
+
+    private String explainLast(String table) {
+        var sql = SqlCapture.STATEMENTS.reversed().stream()
+                .filter(statement -> statement.contains("from " + table + " "))
+                .findFirst()
+                .orElseThrow();
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    private void truncate() {
+        jdbcTemplate.execute("TRUNCATE booking_employee, booking, payment, client_stats, client, walk, route CASCADE");
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package com.samoylenko.bookingservice.service;
 
 import com.samoylenko.bookingservice.repository.*;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
 @ActiveProfiles("test")
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class BaseServiceTest {
     final WalkRepository walkRepository;
     final RouteRepository routeRepository;
@@ -17,15 +18,21 @@ public class BaseServiceTest {
     final BookingRepository bookingRepository;
     final ClientRepository clientRepository;
     final PaymentRepository paymentRepository;
+    @Autowired
+    private WalkCatalogCache catalogCache;
+    @Autowired
+    private RouteService routeService;
 
     @BeforeEach
     public void setUp() {
+        catalogCache.evictAll();
         paymentRepository.deleteAll();
         walkRepository.deleteAll();
         routeRepository.deleteAll();
         bookingRepository.deleteAll();
         employeeRepository.deleteAll();
         clientRepository.deleteAll();
+        routeService.evictRoutes();
     }
 
     @AfterEach
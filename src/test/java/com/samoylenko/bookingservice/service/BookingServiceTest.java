@@ -1,33 +1,50 @@
 package com.samoylenko.bookingservice.service;
 
 import com.samoylenko.bookingservice.model.booking.BookingCreateDto;
+import com.samoylenko.bookingservice.model.booking.BookingDto;
 import com.samoylenko.bookingservice.model.booking.BookingInfo;
 import com.samoylenko.bookingservice.model.booking.BookingRequest;
 import com.samoylenko.bookingservice.model.booking.BookingStatus;
 import com.samoylenko.bookingservice.model.client.ClientCreateDto;
+import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.dto.DefaultClientDtoBuilder;
 import com.samoylenko.bookingservice.model.entity.*;
 import com.samoylenko.bookingservice.model.exception.EntityCreateException;
+import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.model.exception.LimitExceededException;
 import com.samoylenko.bookingservice.model.payment.InvoiceCreateDto;
 import com.samoylenko.bookingservice.model.payment.PaymentDto;
 import com.samoylenko.bookingservice.model.payment.PaymentStatus;
 import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceResponse;
+import com.samoylenko.bookingservice.model.voucher.DiscountType;
+import com.samoylenko.bookingservice.model.voucher.VoucherEntity;
+import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
 import com.samoylenko.bookingservice.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Test;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.context.TestConstructor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
 @TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
 public class BookingServiceTest extends BaseServiceTest {
     private final BookingService bookingService;
@@ -40,6 +57,15 @@ public class BookingServiceTest extends BaseServiceTest {
     @SpyBean
     private PaymentService paymentService;
 
+    @Autowired
+    private BookingExpiryQueue expiryQueue;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private VoucherRepository voucherRepository;
+
     public BookingServiceTest(BookingService bookingService, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
         super(walkRepository, routeRepository, employeeRepository, bookingRepository, clientRepository, paymentRepository);
         this.bookingService = bookingService;
@@ -116,6 +142,95 @@ public class BookingServiceTest extends BaseServiceTest {
         assertThat(updated.getPayment().getStatus()).isEqualTo(PaymentStatus.PENDING);
     }
 
+    @Test
+    public void createInvoice_afterPayKeeperFailure_shouldCancelIntentAndCallPayKeeperOutsideTransaction() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withWalk(walk).build());
+        var transactionActive = new ArrayList<Boolean>();
+        when(payKeeperClient.createInvoice(any(InvoiceCreateDto.class)))
+                .thenAnswer(invocation -> {
+                    transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+                    throw new IllegalStateException("PayKeeper is unavailable");
+                })
+                .thenAnswer(invocation -> {
+                    transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+                    return new InvoiceResponse("invoiceId", "invoiceUrl");
+                });
+
+        assertThatThrownBy(() -> bookingService.createInvoice(booking.getId(), null))
+                .isInstanceOf(EntityCreateException.class);
+        var failed = bookingRepository.findById(booking.getId()).orElseThrow();
+        var paymentsAfterFailure = paymentRepository.count();
+        var updated = bookingService.createInvoice(booking.getId(), null);
+
+        assertThat(transactionActive).containsExactly(false, false);
+        assertThat(failed.getStatus()).isEqualTo(BookingStatus.ACTIVE);
+        assertThat(failed.getPayment()).isNull();
+        assertThat(paymentsAfterFailure).isEqualTo(0);
+        assertThat(updated.getStatus()).isEqualTo(BookingStatus.WAITING_FOR_PAYMENT);
+        assertThat(updated.getPayment().getInvoice().getInvoiceId()).isEqualTo("invoiceId");
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void createInvoice_withCertificateAndPayKeeperFailure_shouldKeepCertificateUsable() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withWalk(walk).build());
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(DiscountType.CERTIFICATE)
+                .withCode("CERT-" + UUID.randomUUID())
+                .withDiscountAbsolute(500)
+                .build());
+        when(payKeeperClient.createInvoice(any(InvoiceCreateDto.class)))
+                .thenThrow(new IllegalStateException("PayKeeper is unavailable"))
+                .thenReturn(new InvoiceResponse("invoiceId", "invoiceUrl"));
+
+        assertThatThrownBy(() -> bookingService.createInvoice(booking.getId(), certificate.getCode()))
+                .isInstanceOf(EntityCreateException.class);
+        var released = voucherRepository.findById(certificate.getId()).orElseThrow();
+        var updated = bookingService.createInvoice(booking.getId(), certificate.getCode());
+
+        assertThat(released.getStatus()).isEqualTo(VoucherStatus.ACTIVE);
+        assertThat(released.getCount()).isEqualTo(0);
+        assertThat(updated.getPayment().getDiscount().getStatus()).isEqualTo(DiscountStatus.ACTIVE);
+        var applied = voucherRepository.findById(certificate.getId()).orElseThrow();
+        assertThat(applied.getStatus()).isEqualTo(VoucherStatus.APPLIED);
+        assertThat(applied.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void createInvoice_withCertificate_shouldLinkPaymentToBooking() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withWalk(walk).build());
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(DiscountType.CERTIFICATE)
+                .withCode("CERT-" + UUID.randomUUID())
+                .withDiscountAbsolute(500)
+                .build());
+        when(payKeeperClient.createInvoice(any(InvoiceCreateDto.class)))
+                .thenReturn(new InvoiceResponse("invoiceId", "invoiceUrl"));
+
+        var updated = bookingService.createInvoice(booking.getId(), certificate.getCode());
+
+        assertThat(updated.getStatus()).isEqualTo(BookingStatus.WAITING_FOR_PAYMENT);
+        assertThat(updated.getPayment().getInvoice().getInvoiceId()).isEqualTo("invoiceId");
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getPayment()).isNotNull();
+        assertThat(voucherRepository.findById(certificate.getId()).orElseThrow().getStatus())
+                .isEqualTo(VoucherStatus.APPLIED);
+    }
+
     @Test
     public void createInvoice_withNotExistBooking_shouldThrowIllegalArgumentException() {
         assertThatThrownBy(() -> bookingService.createInvoice("notExistBooking", null))
@@ -301,6 +416,84 @@ public class BookingServiceTest extends BaseServiceTest {
         assertThat(found.getContent().get(1).getId()).isEqualTo(booking1.getId());
     }
 
+    @Test
+    public void getBookings_withDetails_shouldNotIssueQueriesPerRow() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var statuses = List.of(BookingStatus.WAITING_FOR_PAYMENT, BookingStatus.PAID);
+        for (int i = 0; i < 10; i++) {
+            var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+            var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+            var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+            var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+            bookingRepository.save(DefaultBookingEntityBuilder.of()
+                    .withStatus(statuses.get(i % 2))
+                    .withWalk(walk)
+                    .withClient(client)
+                    .withPayment(payment)
+                    .build());
+        }
+
+        statistics.clear();
+        var small = bookingService.getBookings(BookingRequest.builder()
+                .status(List.of(BookingStatus.PAID))
+                .pageSize(2)
+                .build());
+        var smallStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        var large = bookingService.getBookings(BookingRequest.builder().pageSize(10).build());
+        var largeStatements = statistics.getPrepareStatementCount();
+
+        assertThat(small.getContent()).hasSize(2);
+        assertThat(large.getContent()).hasSize(10);
+        assertThat(large.getContent()).allSatisfy(booking -> {
+            assertThat(booking.getWalkId()).isNotNull();
+            assertThat(booking.getWalkStartTime()).isNotNull();
+            assertThat(booking.getRouteName()).isNotNull();
+            assertThat(booking.getTotalCost()).isNotNull();
+            assertThat(booking.getClient().getPhone()).isNotNull();
+        });
+        assertThat(largeStatements).isEqualTo(smallStatements);
+    }
+
+    @Test
+    public void scrollBookings_shouldReturnEachBookingOnceWithoutCount() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var savedIds = new ArrayList<String>();
+        for (int i = 0; i < 12; i++) {
+            var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+            var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+            savedIds.add(bookingRepository.save(DefaultBookingEntityBuilder.of()
+                    .withWalk(walk)
+                    .withClient(client)
+                    .withPayment(payment)
+                    .build()).getId());
+        }
+
+        var scrolled = new ArrayList<BookingDto>();
+        String cursor = null;
+        var pages = 0;
+        do {
+            statistics.clear();
+            var slice = bookingService.scrollBookings(BookingRequest.builder()
+                    .walkId(walk.getId())
+                    .pageSize(5)
+                    .cursor(cursor)
+                    .build());
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            scrolled.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(scrolled).extracting(BookingDto::getId)
+                .doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(savedIds);
+        assertThat(scrolled).allSatisfy(booking -> assertThat(booking.getRouteName()).isNotNull());
+    }
+
     @Test
     public void getBookingForUser_shouldReturnCompositeBookingDto() {
         var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
@@ -317,6 +510,35 @@ public class BookingServiceTest extends BaseServiceTest {
         assertThat(found.getId()).isEqualTo(booking.getId());
     }
 
+    @Test
+    public void getBookingTag_afterPaymentChange_shouldReturnNewTag() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withWalk(walk)
+                .withPayment(payment)
+                .build());
+
+        var before = bookingService.getBookingTag(booking.getId());
+        var unchanged = bookingService.getBookingTag(booking.getId());
+        payment.setStatus(payment.getStatus() == PaymentStatus.PAID ? PaymentStatus.CANCELED : PaymentStatus.PAID);
+        paymentRepository.save(payment);
+        var after = bookingService.getBookingTag(booking.getId());
+
+        assertThat(unchanged).isEqualTo(before);
+        assertThat(after.etag()).isNotEqualTo(before.etag()).startsWith("W/");
+        assertThat(after.lastModified()).isAfterOrEqualTo(before.lastModified());
+    }
+
+    @Test
+    public void getBookingTag_withUnknownId_shouldThrowException() {
+        assertThatThrownBy(() -> bookingService.getBookingTag("unknown"))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
     @Test
     public void getBookingForAdmin_shouldReturnAdminBookingDto() {
         var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
@@ -353,4 +575,225 @@ public class BookingServiceTest extends BaseServiceTest {
         assertThat(found.getPayment().getDiscount()).isNotNull();
         assertThat(found.getTimeLeft()).isNotNull();
     }
+
+    @Test
+    public void expireBooking_withOverdueWaitingBooking_shouldExpireBookingAndPayment() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withReservedPlaces(2)
+                .withAvailablePlaces(18)
+                .build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withStatus(BookingStatus.WAITING_FOR_PAYMENT)
+                .withNumberOfPeople(2)
+                .withClient(client)
+                .withWalk(walk)
+                .withPayment(payment)
+                .withEndTime(Instant.now().minusSeconds(1))
+                .build());
+
+        var expired = bookingService.expireBooking(booking.getId(), "test");
+
+        assertThat(expired).isTrue();
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.EXPIRED);
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.EXPIRED);
+        var updatedWalk = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(updatedWalk.getReservedPlaces()).isEqualTo(0);
+        assertThat(updatedWalk.getAvailablePlaces()).isEqualTo(20);
+    }
+
+    @Test
+    public void expireBooking_withPaidPayment_shouldKeepPaymentAndVoucher() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).withReservedPlaces(1).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(DiscountType.CERTIFICATE)
+                .withStatus(VoucherStatus.APPLIED)
+                .withCode("CERT-" + UUID.randomUUID())
+                .withCount(1)
+                .build());
+        var payment = paymentRepository.save(withVoucher(certificate.getCode(), certificate)
+                .withStatus(PaymentStatus.PAID)
+                .withInvoiceId(null)
+                .build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withStatus(BookingStatus.WAITING_FOR_PAYMENT)
+                .withClient(client)
+                .withWalk(walk)
+                .withPayment(payment)
+                .withEndTime(Instant.now().minusSeconds(1))
+                .build());
+
+        var expired = bookingService.expireBooking(booking.getId(), "test");
+
+        assertThat(expired).isTrue();
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(voucherRepository.findById(certificate.getId()).orElseThrow().getStatus()).isEqualTo(VoucherStatus.APPLIED);
+    }
+
+    @Test
+    public void expireBooking_withNotOverdueBooking_shouldKeepStatus() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).withReservedPlaces(1).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withWalk(walk)
+                .withEndTime(Instant.now().plusSeconds(600))
+                .build());
+
+        var expired = bookingService.expireBooking(booking.getId(), "test");
+
+        assertThat(expired).isFalse();
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.ACTIVE);
+        assertThat(walkRepository.findById(walk.getId()).orElseThrow().getReservedPlaces()).isEqualTo(1);
+    }
+
+    @Test
+    public void expiryQueue_shouldExpireBookingAtDeadline() throws InterruptedException {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).withReservedPlaces(1).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var endTime = Instant.now().plusMillis(500);
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withWalk(walk)
+                .withEndTime(endTime)
+                .build());
+
+        expiryQueue.schedule(booking.getId(), endTime);
+
+        var status = BookingStatus.ACTIVE;
+        for (int i = 0; i < 50 && status == BookingStatus.ACTIVE; i++) {
+            Thread.sleep(100);
+            status = bookingRepository.findById(booking.getId()).orElseThrow().getStatus();
+        }
+        assertThat(status).isEqualTo(BookingStatus.EXPIRED);
+        assertThat(walkRepository.findById(walk.getId()).orElseThrow().getReservedPlaces()).isEqualTo(0);
+    }
+
+    @Test
+    public void expireOverdueBookings_shouldExpireBookingsReleasePlacesAndExpirePayments() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk1 = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withReservedPlaces(5)
+                .withAvailablePlaces(15)
+                .build());
+        var walk2 = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withReservedPlaces(3)
+                .withAvailablePlaces(17)
+                .build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+        var overdue = DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withEndTime(Instant.now().minusSeconds(60));
+        var active = bookingRepository.save(overdue.withWalk(walk1).withNumberOfPeople(2).build());
+        var waiting = bookingRepository.save(overdue.withWalk(walk1)
+                .withStatus(BookingStatus.WAITING_FOR_PAYMENT)
+                .withPayment(payment)
+                .build());
+        var other = bookingRepository.save(overdue.withWalk(walk2).withNumberOfPeople(3).build());
+        var paid = bookingRepository.save(overdue.withWalk(walk1).withStatus(BookingStatus.PAID).build());
+        var notOverdue = bookingRepository.save(overdue.withWalk(walk2)
+                .withEndTime(Instant.now().plusSeconds(600))
+                .build());
+
+        var expired = bookingService.expireOverdueBookings("test");
+
+        assertThat(expired).isEqualTo(3);
+        assertThat(bookingRepository.findById(active.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.EXPIRED);
+        assertThat(bookingRepository.findById(waiting.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.EXPIRED);
+        assertThat(bookingRepository.findById(other.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.EXPIRED);
+        assertThat(bookingRepository.findById(paid.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.PAID);
+        assertThat(bookingRepository.findById(notOverdue.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.ACTIVE);
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.EXPIRED);
+        var updatedWalk1 = walkRepository.findById(walk1.getId()).orElseThrow();
+        assertThat(updatedWalk1.getReservedPlaces()).isEqualTo(2);
+        assertThat(updatedWalk1.getAvailablePlaces()).isEqualTo(18);
+        var updatedWalk2 = walkRepository.findById(walk2.getId()).orElseThrow();
+        assertThat(updatedWalk2.getReservedPlaces()).isEqualTo(0);
+        assertThat(updatedWalk2.getAvailablePlaces()).isEqualTo(20);
+    }
+
+    @Test
+    public void expireBooking_withIntentWithoutInvoice_shouldReleaseCertificate() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).withReservedPlaces(1).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(DiscountType.CERTIFICATE)
+                .withStatus(VoucherStatus.APPLIED)
+                .withCode("CERT-" + UUID.randomUUID())
+                .withCount(1)
+                .build());
+        var payment = paymentRepository.save(withVoucher(certificate.getCode(), certificate).withInvoiceId(null).build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withStatus(BookingStatus.WAITING_FOR_PAYMENT)
+                .withClient(client)
+                .withWalk(walk)
+                .withPayment(payment)
+                .withEndTime(Instant.now().minusSeconds(1))
+                .build());
+
+        var expired = bookingService.expireBooking(booking.getId(), "test");
+
+        assertThat(expired).isTrue();
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.EXPIRED);
+        var released = voucherRepository.findById(certificate.getId()).orElseThrow();
+        assertThat(released.getStatus()).isEqualTo(VoucherStatus.ACTIVE);
+        assertThat(released.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void expireOverdueBookings_withIntentsWithoutInvoice_shouldReleaseVouchers() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).withReservedPlaces(3).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var promocode = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withCode("PROMO-" + UUID.randomUUID())
+                .withCount(3)
+                .build());
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(DiscountType.CERTIFICATE)
+                .withStatus(VoucherStatus.APPLIED)
+                .withCode("CERT-" + UUID.randomUUID())
+                .withCount(1)
+                .build());
+        var promoPayments = List.of(
+                paymentRepository.save(withVoucher(promocode.getCode(), promocode).withInvoiceId(null).build()),
+                paymentRepository.save(withVoucher(promocode.getCode(), promocode).withInvoiceId(null).build()));
+        // по этому сертификату счет выставлен, применение не отменяется
+        var invoiced = paymentRepository.save(withVoucher(certificate.getCode(), certificate).build());
+        var overdue = DefaultBookingEntityBuilder.of()
+                .withStatus(BookingStatus.WAITING_FOR_PAYMENT)
+                .withClient(client)
+                .withWalk(walk)
+                .withEndTime(Instant.now().minusSeconds(60));
+        bookingRepository.save(overdue.withPayment(promoPayments.get(0)).build());
+        bookingRepository.save(overdue.withPayment(promoPayments.get(1)).build());
+        bookingRepository.save(overdue.withPayment(invoiced).build());
+
+        var expired = bookingService.expireOverdueBookings("test");
+
+        assertThat(expired).isEqualTo(3);
+        assertThat(voucherRepository.findById(promocode.getId()).orElseThrow().getCount()).isEqualTo(1);
+        var keptCertificate = voucherRepository.findById(certificate.getId()).orElseThrow();
+        assertThat(keptCertificate.getStatus()).isEqualTo(VoucherStatus.APPLIED);
+        assertThat(keptCertificate.getCount()).isEqualTo(1);
+    }
+
+    private DefaultPaymentEntityBuilder withVoucher(String code, VoucherEntity voucher) {
+        return DefaultPaymentEntityBuilder.of()
+                .withDiscountType(voucher.getType())
+                .withDiscountStatus(DiscountStatus.ACTIVE)
+                .withDiscountCode(code)
+                .withVoucher(voucher);
+    }
 }
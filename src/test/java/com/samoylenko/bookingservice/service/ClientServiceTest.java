@@ -1,6 +1,9 @@
 package com.samoylenko.bookingservice.service;
 
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
 import com.samoylenko.bookingservice.model.dto.DefaultClientDtoBuilder;
+import com.samoylenko.bookingservice.model.entity.*;
+import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.repository.*;
 import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,12 +11,16 @@ import org.junit.jupiter.api.Test;
 import org.modelmapper.ModelMapper;
 import org.springframework.test.context.TestConstructor;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
 public class ClientServiceTest extends BaseServiceTest {
     private final ClientService clientService;
+    private final BookingService bookingService;
     private final ModelMapper modelMapper;
 
     @BeforeEach
@@ -28,9 +35,10 @@ public class ClientServiceTest extends BaseServiceTest {
     }
 
 
-    public ClientServiceTest(ClientService clientService, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
+    public ClientServiceTest(ClientService clientService, BookingService bookingService, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
         super(walkRepository, routeRepository, employeeRepository, bookingRepository, clientRepository, paymentRepository);
         this.clientService = clientService;
+        this.bookingService = bookingService;
         this.modelMapper = new ModelMapper();
     }
 
@@ -55,4 +63,72 @@ public class ClientServiceTest extends BaseServiceTest {
                 .isInstanceOf(ValidationException.class)
                 .hasMessageContaining("Номер телефона должен быть валидным");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void completePaidBookings_shouldCountEachBookingInClientStatsOnce() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        for (int i = 0; i < 2; i++) {
+            var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+            bookingRepository.save(DefaultBookingEntityBuilder.of()
+                    .withStatus(BookingStatus.PAID)
+                    .withWalk(walk)
+                    .withClient(client)
+                    .withPayment(payment)
+                    .build());
+        }
+        assertThat(clientService.hasCompletedBookings(client.getPhone())).isFalse();
+
+        var completed = bookingService.completePaidBookings(List.of(walk.getId()), "test");
+        var completedAgain = bookingService.completePaidBookings(List.of(walk.getId()), "test");
+
+        assertThat(completed).isEqualTo(2);
+        assertThat(completedAgain).isEqualTo(0);
+        assertThat(clientService.hasCompletedBookings(client.getPhone())).isTrue();
+        var summary = clientService.getSummary(client.getId());
+        assertThat(summary.getPhone()).isEqualTo(client.getPhone());
+        assertThat(summary.getCompletedBookings()).isEqualTo(2);
+        assertThat(summary.getTotalSpent()).isEqualByComparingTo(BigDecimal.valueOf(7000));
+        assertThat(summary.getLastVisit()).isEqualTo(walk.getStartTime());
+    }
+
+    @Test
+    public void recalculateStats_shouldMatchIncrementalStats() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+        bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withStatus(BookingStatus.PAID)
+                .withWalk(walk)
+                .withClient(client)
+                .withPayment(payment)
+                .build());
+        bookingService.completePaidBookings(List.of(walk.getId()), "test");
+
+        clientService.recalculateStats();
+
+        var summary = clientService.getSummary(client.getId());
+        assertThat(summary.getCompletedBookings()).isEqualTo(1);
+        assertThat(summary.getTotalSpent()).isEqualByComparingTo(BigDecimal.valueOf(3500));
+    }
+
+    @Test
+    public void getSummary_withoutCompletedBookings_shouldReturnZeroStats() {
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+
+        var summary = clientService.getSummary(client.getId());
+
+        assertThat(summary.getId()).isEqualTo(client.getId());
+        assertThat(summary.getCompletedBookings()).isEqualTo(0);
+        assertThat(summary.getTotalSpent()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(summary.getLastVisit()).isNull();
+    }
+
+    @Test
+    public void getSummary_withNotExistingClient_shouldThrowNotFoundException() {
+        assertThatThrownBy(() -> clientService.getSummary("notExistingClient"))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+}
@@ -1,19 +1,58 @@
 package com.samoylenko.bookingservice.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samoylenko.bookingservice.config.PayKeeperProperties;
+import com.samoylenko.bookingservice.config.PayKeeperSimulatorProperties;
+import com.samoylenko.bookingservice.model.exception.PaymentProviderUnavailableException;
 import com.samoylenko.bookingservice.model.payment.InvoiceCreateDto;
+import com.samoylenko.bookingservice.simulator.PayKeeperSimulator;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
 
 import static java.math.BigDecimal.valueOf;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 public class PayKeeperClientTest {
-    private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final PayKeeperClient payKeeperClient = new PayKeeperClient(restTemplate, objectMapper);
+    private final PayKeeperProperties properties = properties();
+    private PayKeeperSimulator simulator;
+    private PayKeeperClient payKeeperClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        var simulatorProperties = new PayKeeperSimulatorProperties();
+        simulatorProperties.setPort(0);
+        simulatorProperties.setPaidAfter(Duration.ZERO);
+        simulator = new PayKeeperSimulator(simulatorProperties);
+        simulator.start();
+        var clientProperties = properties();
+        clientProperties.setBaseUrl(simulator.getBaseUrl());
+        payKeeperClient = new PayKeeperClient(new RestTemplate(), objectMapper, clientProperties, circuitBreaker(), bulkhead());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        simulator.stop();
+    }
 
     @Test
     public void getToken() {
@@ -24,7 +63,53 @@ public class PayKeeperClientTest {
 
     @Test
     public void getInvoice() {
-        var createDto = InvoiceCreateDto.builder()
+        var response = payKeeperClient.createInvoice(invoiceCreateDto());
+
+        assertThat(response).isNotNull();
+        assertThat(response.id()).isNotBlank();
+        assertThat(response.url()).isNotBlank();
+    }
+
+    @Test
+    public void getInvoiceInfo() {
+        var invoice = payKeeperClient.createInvoice(invoiceCreateDto());
+
+        var info = payKeeperClient.getInvoiceInfo(invoice.id());
+
+        assertThat(info).isNotNull();
+        assertThat(info.getStatus()).isEqualTo("paid");
+        assertThat(info.getOrderId()).isEqualTo("190720-081-1");
+    }
+
+    @Test
+    public void getPaymentInfo() {
+        var invoice = payKeeperClient.createInvoice(invoiceCreateDto());
+
+        var info = payKeeperClient.getPaymentInfo(invoice.id());
+
+        assertThat(info).contains("190720-081-1");
+    }
+
+    @Test
+    public void getToken_withSimulatedFailures_shouldThrowException() throws IOException {
+        var simulatorProperties = new PayKeeperSimulatorProperties();
+        simulatorProperties.setPort(0);
+        simulatorProperties.setErrorRate(1);
+        var failingSimulator = new PayKeeperSimulator(simulatorProperties);
+        failingSimulator.start();
+        try {
+            var clientProperties = properties();
+            clientProperties.setBaseUrl(failingSimulator.getBaseUrl());
+            var client = new PayKeeperClient(new RestTemplate(), objectMapper, clientProperties, circuitBreaker(), bulkhead());
+
+            assertThatThrownBy(client::getToken).isInstanceOf(HttpServerErrorException.class);
+        } finally {
+            failingSimulator.stop();
+        }
+    }
+
+    private static InvoiceCreateDto invoiceCreateDto() {
+        return InvoiceCreateDto.builder()
                 .clientId("Романов Иван Иванович")
                 .orderId("190720-081-1")
                 .clientPhone("79633100056")
@@ -34,25 +119,74 @@ public class PayKeeperClientTest {
                 .cost(valueOf(6400))
                 .expiry(Instant.now().plusSeconds(60))
                 .build();
+    }
 
-        var response = payKeeperClient.createInvoice(createDto);
-        System.out.println(response);
+    @Test
+    public void getToken_withConcurrentCallers_shouldRequestTokenOnce() throws InterruptedException {
+        var mockRestTemplate = new RestTemplate();
+        var server = MockRestServiceServer.bindTo(mockRestTemplate).build();
+        server.expect(ExpectedCount.once(), requestTo("https://demo.paykeeper.ru/info/settings/token/"))
+                .andRespond(withSuccess("{\"token\": \"cached-token\"}", MediaType.APPLICATION_JSON));
+        var client = new PayKeeperClient(mockRestTemplate, objectMapper, properties, circuitBreaker(), bulkhead());
+        var tokens = new ConcurrentLinkedQueue<String>();
 
-        assertThat(response).isNotNull();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                executor.submit(() -> tokens.add(client.getToken()));
+            }
+        }
+
+        server.verify();
+        assertThat(tokens).hasSize(50).containsOnly("cached-token");
     }
 
     @Test
-    public void getInvoiceInfo() {
-        var info = payKeeperClient.getInvoiceInfo("20240619172556153");
+    public void getToken_afterTtl_shouldRequestNewToken() {
+        var mockRestTemplate = new RestTemplate();
+        var server = MockRestServiceServer.bindTo(mockRestTemplate).build();
+        server.expect(ExpectedCount.twice(), requestTo("https://demo.paykeeper.ru/info/settings/token/"))
+                .andRespond(withSuccess("{\"token\": \"token\"}", MediaType.APPLICATION_JSON));
+        properties.setTokenTtl(Duration.ZERO);
+        var client = new PayKeeperClient(mockRestTemplate, objectMapper, properties, circuitBreaker(), bulkhead());
 
-        assertThat(info).isNotNull();
+        client.getToken();
+        client.getToken();
+
+        server.verify();
     }
 
     @Test
-    public void getPaymentInfo() {
-        var info = payKeeperClient.getPaymentInfo("221376218");
+    public void getToken_whenPayKeeperFails_shouldOpenCircuitAndFailFast() {
+        var mockRestTemplate = new RestTemplate();
+        var server = MockRestServiceServer.bindTo(mockRestTemplate).build();
+        server.expect(ExpectedCount.times(2), requestTo("https://demo.paykeeper.ru/info/settings/token/"))
+                .andRespond(withServerError());
+        var client = new PayKeeperClient(mockRestTemplate, objectMapper, properties, circuitBreaker(), bulkhead());
 
-        assertThat(info).isNotNull();
+        assertThatThrownBy(client::getToken).isInstanceOf(HttpServerErrorException.class);
+        assertThatThrownBy(client::getToken).isInstanceOf(HttpServerErrorException.class);
+        assertThatThrownBy(client::getToken).isInstanceOf(PaymentProviderUnavailableException.class);
+
+        server.verify();
     }
 
+    private static CircuitBreaker circuitBreaker() {
+        return CircuitBreaker.of("paykeeper", CircuitBreakerConfig.custom()
+                .slidingWindowSize(2)
+                .minimumNumberOfCalls(2)
+                .build());
+    }
+
+    private static Bulkhead bulkhead() {
+        return Bulkhead.ofDefaults("paykeeper");
+    }
+
+    private static PayKeeperProperties properties() {
+        var properties = new PayKeeperProperties();
+        properties.setBaseUrl("https://demo.paykeeper.ru");
+        properties.setLogin("demo");
+        properties.setPassword("demo");
+        properties.setTokenTtl(Duration.ofMinutes(30));
+        return properties;
+    }
 }
@@ -0,0 +1,102 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.booking.BookingEntity;
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
+import com.samoylenko.bookingservice.model.client.ClientEntity;
+import com.samoylenko.bookingservice.model.entity.DefaultBookingEntityBuilder;
+import com.samoylenko.bookingservice.model.entity.DefaultClientEntityBuilder;
+import com.samoylenko.bookingservice.model.entity.DefaultPaymentEntityBuilder;
+import com.samoylenko.bookingservice.model.payment.PaymentStatus;
+import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceInfo;
+import com.samoylenko.bookingservice.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestConstructor;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class PaymentPollerTest extends BaseServiceTest {
+    private final PaymentPoller paymentPoller;
+
+    @MockBean
+    private PayKeeperClient payKeeperClient;
+
+    public PaymentPollerTest(PaymentPoller paymentPoller, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
+        super(walkRepository, routeRepository, employeeRepository, bookingRepository, clientRepository, paymentRepository);
+        this.paymentPoller = paymentPoller;
+    }
+
+    @Test
+    void pollPendingInvoices_shouldApplyPaidAndExpiredResults() {
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var paid = saveBookings(client, 60, "paid", Instant.now().plus(15, ChronoUnit.MINUTES));
+        var expired = saveBookings(client, 5, "expired", Instant.now().minus(1, ChronoUnit.MINUTES));
+        var pending = saveBookings(client, 5, "pending", Instant.now().plus(15, ChronoUnit.MINUTES));
+        when(payKeeperClient.getInvoiceInfo(anyString())).thenAnswer(invocation -> {
+            String invoiceId = invocation.getArgument(0);
+            var info = mock(InvoiceInfo.class);
+            when(info.getStatus()).thenReturn(invoiceId.startsWith("paid") ? "paid" : "created");
+            when(info.getOrderId()).thenReturn(invoiceId.substring(invoiceId.indexOf(':') + 1));
+            return info;
+        });
+
+        var changed = paymentPoller.pollPendingInvoices();
+
+        assertThat(changed).isEqualTo(65);
+        assertThat(bookingRepository.findAllById(ids(paid)))
+                .allMatch(booking -> booking.getStatus() == BookingStatus.PAID)
+                .allMatch(booking -> booking.getPayment().getStatus() == PaymentStatus.PAID);
+        assertThat(bookingRepository.findAllById(ids(expired)))
+                .allMatch(booking -> booking.getPayment().getStatus() == PaymentStatus.EXPIRED);
+        assertThat(bookingRepository.findAllById(ids(pending)))
+                .allMatch(booking -> booking.getStatus() == BookingStatus.WAITING_FOR_PAYMENT)
+                .allMatch(booking -> booking.getPayment().getStatus() == PaymentStatus.PENDING);
+    }
+
+    @Test
+    void pollPendingInvoices_withOrderIdMismatch_shouldKeepPaymentPending() {
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var bookings = saveBookings(client, 1, "paid", Instant.now().plus(15, ChronoUnit.MINUTES));
+        var info = mock(InvoiceInfo.class);
+        when(info.getStatus()).thenReturn("paid");
+        when(info.getOrderId()).thenReturn("another-booking");
+        when(payKeeperClient.getInvoiceInfo(anyString())).thenReturn(info);
+
+        var changed = paymentPoller.pollPendingInvoices();
+
+        assertThat(changed).isEqualTo(0);
+        var found = bookingRepository.findById(bookings.get(0).getId()).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(BookingStatus.WAITING_FOR_PAYMENT);
+        assertThat(found.getPayment().getStatus()).isEqualTo(PaymentStatus.PENDING);
+    }
+
+    private List<BookingEntity> saveBookings(ClientEntity client, int count, String prefix, Instant latestPaymentTime) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                            .withClient(client)
+                            .withStatus(BookingStatus.WAITING_FOR_PAYMENT)
+                            .build());
+                    var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of()
+                            .withInvoiceId(prefix + ":" + booking.getId())
+                            .withLatestPaymentTime(latestPaymentTime)
+                            .build());
+                    booking.setPayment(payment);
+                    return bookingRepository.save(booking);
+                })
+                .toList();
+    }
+
+    private List<String> ids(List<BookingEntity> bookings) {
+        return bookings.stream().map(BookingEntity::getId).toList();
+    }
+}
@@ -1,19 +1,24 @@
 package com.samoylenko.bookingservice.service;
 
+import com.samoylenko.bookingservice.model.booking.BookingEntity;
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
 import com.samoylenko.bookingservice.model.client.ClientDto;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.entity.DefaultBookingEntityBuilder;
 import com.samoylenko.bookingservice.model.entity.DefaultClientEntityBuilder;
 import com.samoylenko.bookingservice.model.entity.DefaultPaymentEntityBuilder;
+import com.samoylenko.bookingservice.model.exception.InvalidSignatureException;
 import com.samoylenko.bookingservice.model.payment.InvoiceCreateDto;
 import com.samoylenko.bookingservice.model.payment.PaymentCreateDto;
 import com.samoylenko.bookingservice.model.payment.PaymentStatus;
 import com.samoylenko.bookingservice.model.payment.paykeeper.InvoiceResponse;
+import com.samoylenko.bookingservice.model.payment.paykeeper.PaymentNotification;
 import com.samoylenko.bookingservice.model.voucher.DiscountType;
 import com.samoylenko.bookingservice.model.voucher.VoucherDto;
 import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
 import com.samoylenko.bookingservice.repository.*;
+import com.samoylenko.bookingservice.service.utils.PayKeeperSignature;
 import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,6 +26,7 @@ import org.modelmapper.ModelMapper;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.TestConstructor;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
@@ -35,6 +41,7 @@ import static org.mockito.Mockito.*;
 public class PaymentServiceTest extends BaseServiceTest {
     private final PaymentService paymentService;
     private final ModelMapper modelMapper;
+    private final PayKeeperSignature signature;
     @MockBean
     private PromotionService promotionService;
 
@@ -53,9 +60,10 @@ public class PaymentServiceTest extends BaseServiceTest {
     }
 
 
-    public PaymentServiceTest(PaymentService paymentService, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
+    public PaymentServiceTest(PaymentService paymentService, PayKeeperSignature signature, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
         super(walkRepository, routeRepository, employeeRepository, bookingRepository, clientRepository, paymentRepository);
         this.paymentService = paymentService;
+        this.signature = signature;
         this.modelMapper = new ModelMapper();
     }
 
@@ -134,7 +142,7 @@ public class PaymentServiceTest extends BaseServiceTest {
                 .discountAbsolute(3200)
                 .build();
         when(promotionService.getVoucherByCode(anyString())).thenReturn(voucherDto);
-        doNothing().when(promotionService).applyVoucher(any(DiscountRequest.class));
+        doReturn(DiscountStatus.ACTIVE).when(promotionService).applyVoucher(any(DiscountRequest.class));
         when(payKeeperClient.createInvoice(any(InvoiceCreateDto.class)))
                 .thenReturn(new InvoiceResponse("invoiceId", "invoiceUrl"));
 
@@ -166,7 +174,7 @@ public class PaymentServiceTest extends BaseServiceTest {
                 .discountAbsolute(10000)
                 .build();
         when(promotionService.getVoucherByCode(anyString())).thenReturn(voucherDto);
-        doNothing().when(promotionService).applyVoucher(any(DiscountRequest.class));
+        doReturn(DiscountStatus.ACTIVE).when(promotionService).applyVoucher(any(DiscountRequest.class));
 
         var payment = paymentService.createPaymentDocument(paymentCreateDto);
 
@@ -197,7 +205,7 @@ public class PaymentServiceTest extends BaseServiceTest {
                 .discountPercent(15)
                 .build();
         when(promotionService.getVoucherByCode(anyString())).thenReturn(voucherDto);
-        doNothing().when(promotionService).applyVoucher(any(DiscountRequest.class));
+        doReturn(DiscountStatus.ACTIVE).when(promotionService).applyVoucher(any(DiscountRequest.class));
         when(payKeeperClient.getToken()).thenReturn("token");
         when(payKeeperClient.createInvoice(any(InvoiceCreateDto.class)))
                 .thenReturn(new InvoiceResponse("invoiceId", "invoiceUrl"));
@@ -224,4 +232,72 @@ public class PaymentServiceTest extends BaseServiceTest {
         assertThat(found.getInvoice().getInvoiceUrl()).isEqualTo(payment.getInvoiceUrl());
         assertThat(found.getInvoice().getLatestPaymentTime()).isNotNull();
     }
+
+    @Test
+    public void confirmPayment_withValidSignature_shouldMarkPaymentAndBookingPaid() {
+        var booking = saveBookingWaitingForPayment();
+        var notification = signedNotification("pk-1", booking.getId(), valueOf(3500));
+
+        var response = paymentService.confirmPayment(notification);
+
+        assertThat(response).isEqualTo(signature.response("pk-1"));
+        var found = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(BookingStatus.PAID);
+        assertThat(found.getPayment().getStatus()).isEqualTo(PaymentStatus.PAID);
+    }
+
+    @Test
+    public void confirmPayment_repeated_shouldBeIdempotent() {
+        var booking = saveBookingWaitingForPayment();
+        var notification = signedNotification("pk-1", booking.getId(), valueOf(3500));
+        paymentService.confirmPayment(notification);
+        var version = bookingRepository.findById(booking.getId()).orElseThrow().getPayment().getVersion();
+
+        var response = paymentService.confirmPayment(notification);
+
+        assertThat(response).isEqualTo(signature.response("pk-1"));
+        var found = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(BookingStatus.PAID);
+        assertThat(found.getPayment().getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    public void confirmPayment_withInvalidSignature_shouldThrowInvalidSignatureException() {
+        var booking = saveBookingWaitingForPayment();
+        var notification = PaymentNotification.builder()
+                .id("pk-1")
+                .sum(valueOf(3500))
+                .orderId(booking.getId())
+                .key("0123456789abcdef0123456789abcdef")
+                .build();
+
+        assertThatThrownBy(() -> paymentService.confirmPayment(notification))
+                .isInstanceOf(InvalidSignatureException.class);
+        var found = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(BookingStatus.WAITING_FOR_PAYMENT);
+        assertThat(found.getPayment().getStatus()).isEqualTo(PaymentStatus.PENDING);
+    }
+
+    private BookingEntity saveBookingWaitingForPayment() {
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var booking = bookingRepository.save(DefaultBookingEntityBuilder.of()
+                .withClient(client)
+                .withStatus(BookingStatus.WAITING_FOR_PAYMENT)
+                .build());
+        var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+        booking.setPayment(payment);
+        return bookingRepository.save(booking);
+    }
+
+    // так PayKeeper подписывает уведомление об оплате
+    private PaymentNotification signedNotification(String id, String orderId, BigDecimal sum) {
+        var unsigned = PaymentNotification.builder().id(id).sum(sum).clientId("client").orderId(orderId).build();
+        return PaymentNotification.builder()
+                .id(id)
+                .sum(sum)
+                .clientId("client")
+                .orderId(orderId)
+                .key(signature.sign(unsigned))
+                .build();
+    }
 }
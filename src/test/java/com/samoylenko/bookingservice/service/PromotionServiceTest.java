@@ -1,6 +1,7 @@
 package com.samoylenko.bookingservice.service;
 
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
+import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.entity.DefaultVoucherEntityBuilder;
 import com.samoylenko.bookingservice.model.exception.EntityCreateException;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
@@ -18,6 +19,12 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestConstructor;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.CERTIFICATE;
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.PROMO_CODE;
@@ -39,6 +46,7 @@ public class PromotionServiceTest {
     @BeforeEach
     public void setUp() {
         voucherRepository.deleteAll();
+        promotionService.clearVoucherCodes();
     }
 
     @Test
@@ -90,6 +98,37 @@ public class PromotionServiceTest {
         assertThat(voucher.getDiscountPercent()).isEqualTo(0);
     }
 
+    @Test
+    public void getVoucherByCode_withUnknownCode_shouldFindVoucherAfterCreate() {
+        var before = promotionService.getVoucherByCode("unknown");
+        promotionService.createVoucher(VoucherCreateDto.builder()
+                .type(DiscountType.PROMO_CODE)
+                .code("unknown")
+                .discountAbsolute(300)
+                .build());
+
+        var after = promotionService.getVoucherByCode("unknown");
+
+        assertThat(before).isNull();
+        assertThat(after).isNotNull();
+        assertThat(after.getCode()).isEqualTo("unknown");
+    }
+
+    @Test
+    public void getVoucherByCode_afterApplyCertificate_shouldReturnAppliedVoucher() {
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(CERTIFICATE)
+                .build());
+        var before = promotionService.getVoucherByCode(certificate.getCode());
+
+        promotionService.applyVoucher(DiscountRequest.builder().code(certificate.getCode()).build());
+
+        var after = promotionService.getVoucherByCode(certificate.getCode());
+        assertThat(before.getStatus()).isEqualTo(VoucherStatus.ACTIVE);
+        assertThat(after.getStatus()).isEqualTo(VoucherStatus.APPLIED);
+        assertThat(voucherRepository.findByCode(certificate.getCode()).orElseThrow().getCount()).isEqualTo(1);
+    }
+
     @Test
     public void getVoucherByCode_withNullArg_shouldReturnNull() {
         var voucher = promotionService.getVoucherByCode(null);
@@ -188,8 +227,9 @@ public class PromotionServiceTest {
                 .code(certificate.getCode())
                 .build();
 
-        promotionService.applyVoucher(request);
+        var status = promotionService.applyVoucher(request);
 
+        assertThat(status).isEqualTo(DiscountStatus.ACTIVE);
         var appliedCertificate = voucherRepository.findById(certificate.getId());
         assertThat(appliedCertificate).isPresent();
         assertThat(appliedCertificate.get().getStatus()).isEqualTo(VoucherStatus.APPLIED);
@@ -222,4 +262,112 @@ public class PromotionServiceTest {
         assertThatThrownBy(() -> promotionService.applyVoucher(request))
                 .isInstanceOf(EntityNotFoundException.class);
     }
+
+    @Test
+    public void applyVoucher_withAppliedCertificate_shouldReturnAlreadyApplied() {
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(CERTIFICATE)
+                .withStatus(VoucherStatus.APPLIED)
+                .build());
+        var request = DiscountRequest.builder()
+                .code(certificate.getCode())
+                .build();
+
+        var status = promotionService.applyVoucher(request);
+
+        assertThat(status).isEqualTo(DiscountStatus.ALREADY_APPlIED);
+        assertThat(voucherRepository.findById(certificate.getId()).orElseThrow().getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void applyVoucher_withExpiredPromocode_shouldReturnExpired() {
+        var promocode = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(PROMO_CODE)
+                .withStatus(VoucherStatus.EXPIRED)
+                .build());
+        var request = DiscountRequest.builder()
+                .code(promocode.getCode())
+                .build();
+
+        var status = promotionService.applyVoucher(request);
+
+        assertThat(status).isEqualTo(DiscountStatus.EXPIRED);
+        assertThat(voucherRepository.findById(promocode.getId()).orElseThrow().getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void applyVoucher_withPassedExpiryDate_shouldReturnExpired() {
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(CERTIFICATE)
+                .withExpiredAt(Instant.now().minus(1, ChronoUnit.HOURS))
+                .build());
+        var request = DiscountRequest.builder()
+                .code(certificate.getCode())
+                .build();
+
+        var status = promotionService.applyVoucher(request);
+
+        assertThat(status).isEqualTo(DiscountStatus.EXPIRED);
+        var found = voucherRepository.findById(certificate.getId()).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(VoucherStatus.ACTIVE);
+        assertThat(found.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void applyVoucher_withConcurrentCertificateRedemptions_shouldApplyOnce() throws InterruptedException {
+        var certificate = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(CERTIFICATE)
+                .build());
+        var result = redeemConcurrently(certificate.getCode(), 50);
+
+        assertThat(result.unexpected()).isEmpty();
+        assertThat(result.applied().get()).isEqualTo(1);
+        assertThat(result.rejected().get()).isEqualTo(49);
+        var found = voucherRepository.findById(certificate.getId()).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(VoucherStatus.APPLIED);
+        assertThat(found.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void applyVoucher_withConcurrentPromocodeRedemptions_shouldCountEach() throws InterruptedException {
+        var promocode = voucherRepository.save(DefaultVoucherEntityBuilder.of()
+                .withType(PROMO_CODE)
+                .build());
+        var result = redeemConcurrently(promocode.getCode(), 50);
+
+        assertThat(result.unexpected()).isEmpty();
+        assertThat(result.applied().get()).isEqualTo(50);
+        var found = voucherRepository.findById(promocode.getId()).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(VoucherStatus.ACTIVE);
+        assertThat(found.getCount()).isEqualTo(50);
+    }
+
+    private RedeemResult redeemConcurrently(String code, int threads) throws InterruptedException {
+        var start = new CountDownLatch(1);
+        var result = new RedeemResult(new AtomicInteger(), new AtomicInteger(), new ConcurrentLinkedQueue<>());
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        var status = promotionService.applyVoucher(DiscountRequest.builder().code(code).build());
+                        if (status == DiscountStatus.ACTIVE) {
+                            result.applied().incrementAndGet();
+                        } else {
+                            result.rejected().incrementAndGet();
+                        }
+                    } catch (Throwable e) {
+                        result.unexpected().add(e);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        }
+        return result;
+    }
+
+    private record RedeemResult(AtomicInteger applied, AtomicInteger rejected, ConcurrentLinkedQueue<Throwable> unexpected) {
+    }
 }
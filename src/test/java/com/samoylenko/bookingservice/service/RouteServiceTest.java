@@ -138,6 +138,27 @@ public class RouteServiceTest extends BaseServiceTest {
         assertThat(found.get(0).getId()).isEqualTo(route3.getId());
     }
 
+    @Test
+    public void getAllRoutes_afterCreateAndUpdate_shouldReturnActualRoutes() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var before = routeService.getAllRoutes();
+        var created = routeService.createRoute(RouteCreateDto.builder()
+                .name("testName")
+                .description("testDescription")
+                .priceForOne(10)
+                .serviceName("testService")
+                .build());
+        routeService.updateRoute(route.getId(), RouteUpdateDto.builder().name("newName").build());
+
+        var after = routeService.getAllRoutes();
+
+        assertThat(before).hasSize(1);
+        assertThat(after).hasSize(2);
+        assertThat(after.get(0).getId()).isEqualTo(created.getId());
+        assertThat(after.get(1).getName()).isEqualTo("newName");
+        assertThat(routeService.getAllRoutes()).isSameAs(after);
+    }
+
     @Test
     public void markDeleted_shouldMarkRouteAsDeleted() {
         var route1 = routeRepository.save(DefaultRouteEntityBuilder.of().build());
@@ -0,0 +1,80 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.booking.BookingEntity;
+import com.samoylenko.bookingservice.model.booking.BookingStatus;
+import com.samoylenko.bookingservice.model.entity.DefaultBookingEntityBuilder;
+import com.samoylenko.bookingservice.model.entity.DefaultClientEntityBuilder;
+import com.samoylenko.bookingservice.model.entity.DefaultRouteEntityBuilder;
+import com.samoylenko.bookingservice.model.entity.DefaultWalkEntityBuilder;
+import com.samoylenko.bookingservice.model.walk.WalkEntity;
+import com.samoylenko.bookingservice.model.walk.WalkStatus;
+import com.samoylenko.bookingservice.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestConstructor;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class SchedulerTest extends BaseServiceTest {
+    private final Scheduler scheduler;
+
+    public SchedulerTest(Scheduler scheduler, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
+        super(walkRepository, routeRepository, employeeRepository, bookingRepository, clientRepository, paymentRepository);
+        this.scheduler = scheduler;
+    }
+
+    @Test
+    void scanWalksToCompleteBookings_shouldMoveAllMatchingWalksAndCompletePaidBookings() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+        var startTime = Instant.now().plus(30, ChronoUnit.MINUTES);
+        var walkBuilder = DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withStatus(WalkStatus.BOOKING_IN_PROGRESS)
+                .withStartTime(startTime)
+                .withEndTime(startTime.plus(2, ChronoUnit.HOURS));
+        var walks = IntStream.range(0, 25)
+                .mapToObj(i -> walkRepository.save(walkBuilder.build()))
+                .toList();
+        var later = walkRepository.save(walkBuilder.withStartTime(Instant.now().plus(2, ChronoUnit.DAYS)).build());
+        var bookingBuilder = DefaultBookingEntityBuilder.of().withClient(client);
+        var paid = walks.stream()
+                .map(walk -> bookingRepository.save(bookingBuilder.withWalk(walk).withStatus(BookingStatus.PAID).build()))
+                .toList();
+        var expired = bookingRepository.save(bookingBuilder.withWalk(walks.get(0)).withStatus(BookingStatus.EXPIRED).build());
+
+        scheduler.scanWalksToCompleteBookings();
+
+        assertThat(walkRepository.findAllById(walks.stream().map(WalkEntity::getId).toList()))
+                .allMatch(walk -> walk.getStatus() == WalkStatus.BOOKING_FINISHED);
+        assertThat(walkRepository.findById(later.getId()).orElseThrow().getStatus()).isEqualTo(WalkStatus.BOOKING_IN_PROGRESS);
+        assertThat(bookingRepository.findAllById(paid.stream().map(BookingEntity::getId).toList()))
+                .allMatch(booking -> booking.getStatus() == BookingStatus.COMPLETED);
+        assertThat(bookingRepository.findById(expired.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.EXPIRED);
+    }
+
+    @Test
+    void scanWalksToFinish_shouldMoveAllMatchingWalks() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var startTime = Instant.now().plus(30, ChronoUnit.MINUTES);
+        var walkBuilder = DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withStatus(WalkStatus.BOOKING_FINISHED)
+                .withStartTime(startTime)
+                .withEndTime(startTime.plus(2, ChronoUnit.HOURS));
+        var walks = IntStream.range(0, 15)
+                .mapToObj(i -> walkRepository.save(walkBuilder.build()))
+                .toList();
+        var inProgress = walkRepository.save(walkBuilder.withStatus(WalkStatus.BOOKING_IN_PROGRESS).build());
+
+        scheduler.scanWalksToFinish();
+
+        assertThat(walkRepository.findAllById(walks.stream().map(WalkEntity::getId).toList()))
+                .allMatch(walk -> walk.getStatus() == WalkStatus.FINISHED);
+        assertThat(walkRepository.findById(inProgress.getId()).orElseThrow().getStatus()).isEqualTo(WalkStatus.BOOKING_IN_PROGRESS);
+    }
+}
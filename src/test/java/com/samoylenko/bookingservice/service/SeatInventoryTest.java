@@ -0,0 +1,157 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.entity.DefaultRouteEntityBuilder;
+import com.samoylenko.bookingservice.model.entity.DefaultWalkEntityBuilder;
+import com.samoylenko.bookingservice.model.exception.LimitExceededException;
+import com.samoylenko.bookingservice.model.walk.WalkEntity;
+import com.samoylenko.bookingservice.model.walk.WalkUpdateDto;
+import com.samoylenko.bookingservice.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "service.seatInventoryEnabled=true")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class SeatInventoryTest extends BaseServiceTest {
+    private final SeatInventory seatInventory;
+    private final WalkService walkService;
+    private final TransactionTemplate transactionTemplate;
+
+    public SeatInventoryTest(SeatInventory seatInventory, WalkService walkService, TransactionTemplate transactionTemplate, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
+        super(walkRepository, routeRepository, employeeRepository, bookingRepository, clientRepository, paymentRepository);
+        this.seatInventory = seatInventory;
+        this.walkService = walkService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @AfterEach
+    void flushBeforeCleanup() {
+        // иначе плановая запись мест пересекается с удалением прогулок в tearDown
+        seatInventory.flush();
+    }
+
+    @Test
+    void reserve_withConcurrentBookers_shouldNotOversellAndFlushToDatabase() throws InterruptedException {
+        var bookers = 200;
+        var walk = saveWalk(50);
+        var start = new CountDownLatch(1);
+        var reserved = new AtomicInteger();
+        var rejected = new AtomicInteger();
+        var unexpected = new ConcurrentLinkedQueue<Throwable>();
+
+        try (var executor = Executors.newFixedThreadPool(bookers)) {
+            for (int i = 0; i < bookers; i++) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        walkService.reservePlaces(walk.getId(), 1);
+                        reserved.incrementAndGet();
+                    } catch (LimitExceededException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        }
+        seatInventory.flush();
+
+        assertThat(unexpected).isEmpty();
+        assertThat(reserved.get()).isEqualTo(50);
+        assertThat(rejected.get()).isEqualTo(bookers - 50);
+        assertThat(seatInventory.getAvailablePlaces(walk.getId())).isEqualTo(0);
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getReservedPlaces()).isEqualTo(50);
+        assertThat(found.getAvailablePlaces()).isEqualTo(0);
+    }
+
+    @Test
+    void reserve_insideRolledBackTransaction_shouldReturnPlaces() {
+        var walk = saveWalk(10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            walkService.reservePlaces(walk.getId(), 4);
+            assertThat(seatInventory.getAvailablePlaces(walk.getId())).isEqualTo(6);
+            status.setRollbackOnly();
+        });
+        seatInventory.flush();
+
+        assertThat(seatInventory.getAvailablePlaces(walk.getId())).isEqualTo(10);
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getReservedPlaces()).isEqualTo(0);
+    }
+
+    @Test
+    void release_withMoreThanReserved_shouldThrowLimitExceededException() {
+        var walk = saveWalk(10);
+        walkService.reservePlaces(walk.getId(), 1);
+
+        assertThatThrownBy(() -> walkService.releasePlaces(walk.getId(), 2))
+                .isInstanceOf(LimitExceededException.class);
+        assertThat(seatInventory.getAvailablePlaces(walk.getId())).isEqualTo(9);
+    }
+
+    @Test
+    void reconcile_shouldPickUpChangesMadeInDatabase() {
+        var walk = saveWalk(10);
+        walkService.reservePlaces(walk.getId(), 2);
+        seatInventory.flush();
+        transactionTemplate.executeWithoutResult(status -> walkRepository.reservePlaces(walk.getId(), 3));
+
+        seatInventory.reconcile();
+
+        assertThat(seatInventory.getAvailablePlaces(walk.getId())).isEqualTo(5);
+    }
+
+    @Test
+    void updateWalk_withUnflushedReservations_shouldKeepReservedPlaces() {
+        var walk = saveWalk(10);
+        walkService.reservePlaces(walk.getId(), 4);
+
+        walkService.updateWalk(walk.getId(), WalkUpdateDto.builder().maxPlaces(12).build());
+        seatInventory.flush();
+
+        assertThat(seatInventory.getAvailablePlaces(walk.getId())).isEqualTo(8);
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getMaxPlaces()).isEqualTo(12);
+        assertThat(found.getReservedPlaces()).isEqualTo(4);
+    }
+
+    @Test
+    void refresh_insideRolledBackTransaction_shouldKeepFlushedPlaces() {
+        var walk = saveWalk(10);
+        walkService.reservePlaces(walk.getId(), 3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            seatInventory.refresh(walk.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(seatInventory.getAvailablePlaces(walk.getId())).isEqualTo(7);
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getReservedPlaces()).isEqualTo(3);
+    }
+
+    private WalkEntity saveWalk(int maxPlaces) {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        return walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withMaxPlaces(maxPlaces)
+                .withAvailablePlaces(maxPlaces)
+                .build());
+    }
+}
@@ -0,0 +1,95 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.entity.DefaultVoucherEntityBuilder;
+import com.samoylenko.bookingservice.model.voucher.DiscountType;
+import com.samoylenko.bookingservice.model.voucher.VoucherBatchProgress;
+import com.samoylenko.bookingservice.model.voucher.VoucherCreateDto;
+import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
+import com.samoylenko.bookingservice.repository.VoucherRepository;
+import lombok.AllArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AllArgsConstructor
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class VoucherBatchServiceTest {
+    private final VoucherBatchService voucherBatchService;
+    private final PromotionService promotionService;
+    private final VoucherRepository voucherRepository;
+
+    @BeforeEach
+    public void setUp() {
+        voucherRepository.deleteAll();
+        promotionService.clearVoucherCodes();
+    }
+
+    @Test
+    public void createVouchers_shouldInsertAllCodesInBatches() {
+        var template = VoucherCreateDto.builder()
+                .type(DiscountType.PROMO_CODE)
+                .distributor("campaign")
+                .discountPercent(10)
+                .build();
+        var codes = voucherBatchService.generateCodes(template, 2500);
+        var progress = new ArrayList<VoucherBatchProgress>();
+
+        voucherBatchService.createVouchers(template, codes, progress::add);
+
+        assertThat(new HashSet<>(codes)).hasSize(2500);
+        assertThat(progress).hasSize(3);
+        assertThat(progress.get(2).created()).isEqualTo(2500);
+        assertThat(progress.get(2).total()).isEqualTo(2500);
+        assertThat(progress.stream().mapToInt(p -> p.codes().size()).sum()).isEqualTo(2500);
+        assertThat(voucherRepository.count()).isEqualTo(2500);
+        var voucher = promotionService.getVoucherByCode(codes.get(0));
+        assertThat(voucher.getType()).isEqualTo(DiscountType.PROMO_CODE);
+        assertThat(voucher.getStatus()).isEqualTo(VoucherStatus.ACTIVE);
+        assertThat(voucher.getDiscountPercent()).isEqualTo(10);
+        assertThat(voucher.getDistributor()).isEqualTo("campaign");
+    }
+
+    @Test
+    public void createVouchers_withExistingCode_shouldReplaceIt() {
+        var existing = voucherRepository.save(DefaultVoucherEntityBuilder.of().withCode("EXISTING").build());
+        var template = VoucherCreateDto.builder()
+                .type(DiscountType.CERTIFICATE)
+                .discountAbsolute(500)
+                .build();
+        assertThat(promotionService.getVoucherByCode("NEWCODE1")).isNull();
+        var progress = new ArrayList<VoucherBatchProgress>();
+
+        voucherBatchService.createVouchers(template, List.of("NEWCODE1", existing.getCode(), "NEWCODE2"), progress::add);
+
+        assertThat(voucherRepository.count()).isEqualTo(4);
+        assertThat(progress).hasSize(2);
+        assertThat(progress.get(0).codes()).containsExactly("NEWCODE1", "NEWCODE2");
+        assertThat(progress.get(1).codes()).hasSize(1).doesNotContain(existing.getCode());
+        assertThat(progress.get(1).created()).isEqualTo(3);
+        assertThat(voucherRepository.findByCode(existing.getCode()).orElseThrow().getType()).isEqualTo(DiscountType.PROMO_CODE);
+        assertThat(promotionService.getVoucherByCode("NEWCODE1")).isNotNull();
+    }
+
+    @Test
+    public void generateCodes_withTooManyCodes_shouldThrowException() {
+        var template = VoucherCreateDto.builder()
+                .type(DiscountType.PROMO_CODE)
+                .build();
+
+        assertThatThrownBy(() -> voucherBatchService.generateCodes(template, 1_000_000))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> voucherBatchService.generateCodes(template, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
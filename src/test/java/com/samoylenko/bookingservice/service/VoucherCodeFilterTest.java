@@ -0,0 +1,89 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.entity.DefaultVoucherEntityBuilder;
+import com.samoylenko.bookingservice.model.voucher.DiscountType;
+import com.samoylenko.bookingservice.model.voucher.VoucherCreateDto;
+import com.samoylenko.bookingservice.repository.VoucherRepository;
+import com.samoylenko.bookingservice.service.utils.BloomFilter;
+import lombok.AllArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AllArgsConstructor
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class VoucherCodeFilterTest {
+    private final VoucherCodeFilter voucherCodeFilter;
+    private final PromotionService promotionService;
+    private final VoucherRepository voucherRepository;
+
+    @BeforeEach
+    public void setUp() {
+        voucherRepository.deleteAll();
+        promotionService.clearVoucherCodes();
+        voucherCodeFilter.refresh();
+    }
+
+    @Test
+    public void lookup_withUnknownCode_shouldNotCallLoader() {
+        var loads = new AtomicInteger();
+
+        var voucher = voucherCodeFilter.lookup("UNKNOWN-" + UUID.randomUUID(), code -> {
+            loads.incrementAndGet();
+            return promotionService.getVoucherByCode(code);
+        });
+
+        assertThat(voucher).isNull();
+        assertThat(loads.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void lookup_afterCreateVoucher_shouldReturnVoucher() {
+        var created = promotionService.createVoucher(VoucherCreateDto.builder()
+                .type(DiscountType.PROMO_CODE)
+                .discountPercent(10)
+                .build());
+
+        var voucher = voucherCodeFilter.lookup(created.getCode(), promotionService::getVoucherByCode);
+
+        assertThat(voucher).isNotNull();
+        assertThat(voucher.getId()).isEqualTo(created.getId());
+    }
+
+    @Test
+    public void refresh_withVoucherSavedByOtherInstance_shouldAddCode() {
+        var code = "OTHER-" + UUID.randomUUID();
+        voucherRepository.save(DefaultVoucherEntityBuilder.of().withCode(code).build());
+
+        voucherCodeFilter.refresh();
+
+        assertThat(voucherCodeFilter.mightContain(code)).isTrue();
+    }
+
+    @Test
+    public void bloomFilter_shouldHaveNoFalseNegativesAndBoundedFalsePositives() {
+        var filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("CODE" + i);
+        }
+
+        var falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("CODE" + i)).isTrue();
+            if (filter.mightContain("MISSING" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,62 @@
+package com.samoylenko.bookingservice.service;
+
+import com.samoylenko.bookingservice.model.walk.CompositeUserWalkDto;
+import lombok.AllArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AllArgsConstructor
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class WalkCatalogCacheTest {
+    private final WalkCatalogCache catalogCache;
+
+    @BeforeEach
+    public void setUp() {
+        catalogCache.evictAll();
+    }
+
+    @Test
+    public void getWalk_shouldLoadOnce() {
+        var walkId = UUID.randomUUID().toString();
+        var loads = new AtomicInteger();
+
+        catalogCache.getWalk(walkId, () -> load(walkId, loads));
+        catalogCache.getWalk(walkId, () -> load(walkId, loads));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void getWalk_withEvictionDuringLoad_shouldNotCacheLoadedWalk() {
+        var walkId = UUID.randomUUID().toString();
+        var loads = new AtomicInteger();
+
+        var walk = catalogCache.getWalk(walkId, () -> {
+            var loaded = load(walkId, loads);
+            // изменение закоммичено после чтения, но до записи результата в кэш
+            catalogCache.evictRoute(UUID.randomUUID().toString());
+            return loaded;
+        });
+        catalogCache.getWalk(walkId, () -> load(walkId, loads));
+
+        assertThat(walk.getId()).isEqualTo(walkId);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private CompositeUserWalkDto load(String walkId, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return CompositeUserWalkDto.builder()
+                .id(walkId)
+                .build();
+    }
+}
@@ -1,15 +1,21 @@
 package com.samoylenko.bookingservice.service;
 
+import com.samoylenko.bookingservice.model.employee.EmployeeEntity;
 import com.samoylenko.bookingservice.model.entity.*;
 import com.samoylenko.bookingservice.model.exception.EntityCreateException;
 import com.samoylenko.bookingservice.model.exception.EntityNotFoundException;
 import com.samoylenko.bookingservice.model.exception.EntityUpdateException;
+import com.samoylenko.bookingservice.model.exception.LimitExceededException;
 import com.samoylenko.bookingservice.model.walk.WalkCreateDto;
+import com.samoylenko.bookingservice.model.walk.WalkDto;
+import com.samoylenko.bookingservice.model.walk.WalkEntity;
 import com.samoylenko.bookingservice.model.walk.WalkRequest;
 import com.samoylenko.bookingservice.model.walk.WalkStatus;
 import com.samoylenko.bookingservice.model.walk.WalkUpdateDto;
 import com.samoylenko.bookingservice.repository.*;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.validation.ConstraintViolationException;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Sort;
@@ -21,21 +27,33 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.time.Instant.now;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
 @ActiveProfiles("test")
 @TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
 public class WalkServiceTest extends BaseServiceTest {
     private final WalkService walkService;
+    private final EntityManagerFactory entityManagerFactory;
 
-    public WalkServiceTest(WalkService walkService, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
+    public WalkServiceTest(WalkService walkService, EntityManagerFactory entityManagerFactory, WalkRepository walkRepository, RouteRepository routeRepository, EmployeeRepository employeeRepository, BookingRepository bookingRepository, ClientRepository clientRepository, PaymentRepository paymentRepository) {
         super(walkRepository, routeRepository, employeeRepository, bookingRepository, clientRepository, paymentRepository);
         this.walkService = walkService;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     @Test
@@ -162,6 +180,31 @@ public class WalkServiceTest extends BaseServiceTest {
         assertThat(found.getBookings().get(1).getId()).isEqualTo(booking2.getId());
     }
 
+    @Test
+    public void getWalkForAdmin_withManyBookings_shouldNotIncreaseStatementCount() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var employee = employeeRepository.save(DefaultEmployeeEntityBuilder.of().build());
+        var smallWalk = saveWalkWithBookings(2, employee);
+        var largeWalk = saveWalkWithBookings(20, employee);
+
+        statistics.clear();
+        var small = walkService.getWalkForAdmin(smallWalk.getId());
+        var smallStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        var large = walkService.getWalkForAdmin(largeWalk.getId());
+        var largeStatements = statistics.getPrepareStatementCount();
+
+        assertThat(small.getBookings()).hasSize(2);
+        assertThat(large.getBookings()).hasSize(20);
+        assertThat(large.getBookings()).allSatisfy(booking -> {
+            assertThat(booking.getClient()).isNotNull();
+            assertThat(booking.getPayment()).isNotNull();
+            assertThat(booking.getPayment().getBookingId()).isEqualTo(booking.getId());
+            assertThat(booking.getEmployees()).hasSize(1);
+        });
+        assertThat(largeStatements).isEqualTo(smallStatements);
+    }
+
     @Test
     public void getAllForUser_shouldReturnWalkUserDtos() {
         var savedRoute = routeRepository.save(DefaultRouteEntityBuilder.of().build());
@@ -360,4 +403,246 @@ public class WalkServiceTest extends BaseServiceTest {
         var walks = foundPage.getContent();
         assertThat(walks).hasSize(2);
     }
+
+    @Test
+    void reservePlaces_shouldUpdateReservedAndAvailablePlaces() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+
+        walkService.reservePlaces(walk.getId(), 3);
+
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getReservedPlaces()).isEqualTo(3);
+        assertThat(found.getAvailablePlaces()).isEqualTo(17);
+        assertThat(found.getVersion()).isEqualTo(walk.getVersion() + 1);
+    }
+
+    @Test
+    void reservePlaces_withNotEnoughPlaces_shouldThrowLimitExceededException() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withMaxPlaces(10)
+                .withReservedPlaces(8)
+                .withAvailablePlaces(2)
+                .build());
+
+        assertThatThrownBy(() -> walkService.reservePlaces(walk.getId(), 3))
+                .isInstanceOf(LimitExceededException.class);
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getReservedPlaces()).isEqualTo(8);
+        assertThat(found.getAvailablePlaces()).isEqualTo(2);
+    }
+
+    @Test
+    void reservePlaces_withNotExistingWalk_shouldThrowEntityNotFoundException() {
+        assertThatThrownBy(() -> walkService.reservePlaces("notExistingWalk", 1))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void reservePlaces_withConcurrentBookers_shouldNotOversell() throws InterruptedException {
+        var bookers = 200;
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withMaxPlaces(50)
+                .withAvailablePlaces(50)
+                .build());
+        var start = new CountDownLatch(1);
+        var reserved = new AtomicInteger();
+        var rejected = new AtomicInteger();
+        var unexpected = new ConcurrentLinkedQueue<Throwable>();
+
+        try (var executor = Executors.newFixedThreadPool(bookers)) {
+            for (int i = 0; i < bookers; i++) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        walkService.reservePlaces(walk.getId(), 1);
+                        reserved.incrementAndGet();
+                    } catch (LimitExceededException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        }
+
+        assertThat(unexpected).isEmpty();
+        assertThat(reserved.get()).isEqualTo(50);
+        assertThat(rejected.get()).isEqualTo(bookers - 50);
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getReservedPlaces()).isEqualTo(50);
+        assertThat(found.getAvailablePlaces()).isEqualTo(0);
+    }
+
+    @Test
+    void releasePlaces_shouldUpdateReservedAndAvailablePlaces() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withReservedPlaces(5)
+                .withAvailablePlaces(15)
+                .build());
+
+        walkService.releasePlaces(walk.getId(), 2);
+
+        var found = walkRepository.findById(walk.getId()).orElseThrow();
+        assertThat(found.getReservedPlaces()).isEqualTo(3);
+        assertThat(found.getAvailablePlaces()).isEqualTo(17);
+    }
+
+    @Test
+    void releasePlaces_withMoreThanReserved_shouldThrowLimitExceededException() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withReservedPlaces(1)
+                .withAvailablePlaces(19)
+                .build());
+
+        assertThatThrownBy(() -> walkService.releasePlaces(walk.getId(), 2))
+                .isInstanceOf(LimitExceededException.class);
+    }
+
+    @Test
+    void getWalkForUser_repeated_shouldNotQueryDatabase() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var request = WalkRequest.builder()
+                .routeId(route.getId())
+                .pageNumber(0)
+                .pageSize(10)
+                .build();
+        walkService.getWalkForUser(walk.getId());
+        walkService.getWalksForUser(request);
+
+        statistics.clear();
+        var found = walkService.getWalkForUser(walk.getId());
+        var foundPage = walkService.getWalksForUser(request);
+
+        assertThat(found.getId()).isEqualTo(walk.getId());
+        assertThat(foundPage.getContent()).extracting(WalkDto::getId).containsExactly(walk.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void getWalksForUser_afterReservePlaces_shouldReturnUpdatedAvailablePlaces() {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of()
+                .withRoute(route)
+                .withMaxPlaces(20)
+                .withAvailablePlaces(20)
+                .build());
+        var request = WalkRequest.builder()
+                .routeId(route.getId())
+                .pageNumber(0)
+                .pageSize(10)
+                .build();
+        assertThat(walkService.getWalksForUser(request).getContent().getFirst().getAvailablePlaces()).isEqualTo(20);
+        assertThat(walkService.getWalkForUser(walk.getId()).getAvailablePlaces()).isEqualTo(20);
+
+        walkService.reservePlaces(walk.getId(), 3);
+
+        assertThat(walkService.getWalksForUser(request).getContent().getFirst().getAvailablePlaces()).isEqualTo(17);
+        assertThat(walkService.getWalkForUser(walk.getId()).getAvailablePlaces()).isEqualTo(17);
+    }
+
+    @Test
+    void getWalkForUser_withConcurrentMisses_shouldLoadOnce() throws InterruptedException {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var readers = 50;
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        var start = new CountDownLatch(1);
+        var unexpected = new ConcurrentLinkedQueue<Throwable>();
+
+        statistics.clear();
+        try (var executor = Executors.newFixedThreadPool(readers)) {
+            for (int i = 0; i < readers; i++) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        walkService.getWalkForUser(walk.getId());
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        }
+
+        assertThat(unexpected).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void scrollWalksForUser_withEqualStartTimes_shouldReturnEachWalkOnceWithoutCount() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var startTime = now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        var walk = DefaultWalkEntityBuilder.of()
+                .withStatus(WalkStatus.BOOKING_IN_PROGRESS)
+                .withRoute(route);
+        var savedIds = new ArrayList<String>();
+        for (int i = 0; i < 25; i++) {
+            savedIds.add(walkRepository.save(walk.withStartTime(startTime.plus(i / 5, ChronoUnit.HOURS)).build()).getId());
+        }
+
+        var scrolled = new ArrayList<WalkDto>();
+        String cursor = null;
+        var pages = 0;
+        do {
+            statistics.clear();
+            var slice = walkService.scrollWalksForUser(WalkRequest.builder()
+                    .routeId(route.getId())
+                    .direction(Sort.Direction.ASC)
+                    .pageSize(10)
+                    .cursor(cursor)
+                    .build());
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            scrolled.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(scrolled).extracting(WalkDto::getId)
+                .doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(savedIds);
+        assertThat(scrolled).extracting(WalkDto::getStartTime).isSorted();
+    }
+
+    @Test
+    public void scrollWalksForUser_withInvalidCursor_shouldThrowException() {
+        var request = WalkRequest.builder().cursor("not a cursor").build();
+
+        assertThatThrownBy(() -> walkService.scrollWalksForUser(request))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private WalkEntity saveWalkWithBookings(int numberOfBookings, EmployeeEntity employee) {
+        var route = routeRepository.save(DefaultRouteEntityBuilder.of().build());
+        var walk = walkRepository.save(DefaultWalkEntityBuilder.of().withRoute(route).build());
+        for (int i = 0; i < numberOfBookings; i++) {
+            var client = clientRepository.save(DefaultClientEntityBuilder.of().build());
+            var payment = paymentRepository.save(DefaultPaymentEntityBuilder.of().build());
+            var booking = DefaultBookingEntityBuilder.of()
+                    .withWalk(walk)
+                    .withClient(client)
+                    .withPayment(payment)
+                    .build();
+            booking.setEmployees(Set.of(employee));
+            bookingRepository.save(booking);
+        }
+        return walk;
+    }
 }
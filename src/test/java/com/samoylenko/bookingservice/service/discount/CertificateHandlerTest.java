@@ -15,6 +15,7 @@ import static com.samoylenko.bookingservice.model.voucher.DiscountType.CERTIFICA
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.PROMO_CODE;
 import static java.math.BigDecimal.valueOf;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -178,4 +179,31 @@ public class CertificateHandlerTest {
         assertThat(response.getDiscountPercent()).isEqualTo(0);
         assertThat(response.getDiscountAbsolute()).isEqualTo(10000);
     }
+
+    @Test
+    public void apply_withCertificateAppliedConcurrently_shouldReturnDiscountWithStatusALREADY_APPLIED() {
+        var voucherDto = VoucherDto.builder()
+                .type(CERTIFICATE)
+                .status(VoucherStatus.ACTIVE)
+                .code("certificate")
+                .discountPercent(0)
+                .discountAbsolute(3500)
+                .build();
+        when(promotionService.getVoucherByCode(anyString())).thenReturn(voucherDto);
+        when(promotionService.applyVoucher(any(DiscountRequest.class))).thenReturn(DiscountStatus.ALREADY_APPlIED);
+        var voucherRequest = DiscountRequest.builder()
+                .code("certificate")
+                .quantity(2)
+                .price(valueOf(3000))
+                .build();
+
+        var response = certificateHandler.applyDiscount(voucherRequest);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getType()).isEqualTo(CERTIFICATE);
+        assertThat(response.getStatus()).isEqualTo(DiscountStatus.ALREADY_APPlIED);
+        assertThat(response.getPriceForOne().compareTo(valueOf(3000))).isEqualTo(0);
+        assertThat(response.getTotalCost().compareTo(valueOf(6000))).isEqualTo(0);
+        assertThat(response.getQuantity()).isEqualTo(2);
+    }
 }
@@ -0,0 +1,71 @@
+package com.samoylenko.bookingservice.service.discount;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static java.math.BigDecimal.ZERO;
+import static java.math.BigDecimal.valueOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DiscountArithmeticTest {
+    private static final List<BigDecimal> PRICES = List.of(
+            valueOf(2800), valueOf(1), ZERO, new BigDecimal("1E+3"), new BigDecimal("2800.50"),
+            new BigDecimal("99.999"), new BigDecimal("0.333"), new BigDecimal("1234.5"), new BigDecimal("15.000001"));
+    private static final List<Integer> QUANTITIES = List.of(1, 2, 3, 5, 7, 13);
+    private static final List<Integer> PERCENTS = List.of(0, 1, 7, 15, 33, 50, 99, 100);
+    private static final List<Integer> ABSOLUTES = List.of(0, 1, 3, 100, 1000, 10000);
+
+    @Test
+    public void percentDiscount_shouldMatchBigDecimalCalculation() {
+        for (var price : PRICES) {
+            for (var quantity : QUANTITIES) {
+                for (var percent : PERCENTS) {
+                    for (var absolute : ABSOLUTES) {
+                        var expectedCost = price
+                                .subtract(valueOf(absolute))
+                                .multiply(valueOf(quantity))
+                                .multiply(valueOf(100 - percent))
+                                .divide(valueOf(100), 2, RoundingMode.UP);
+                        expectedCost = expectedCost.compareTo(ZERO) > 0 ? expectedCost : ZERO;
+                        var expectedPrice = expectedCost.divide(valueOf(quantity), 2, RoundingMode.UP);
+
+                        var discount = DiscountArithmetic.percentDiscount(price, quantity, percent, absolute).build();
+
+                        assertThat(discount.getTotalCost()).isEqualTo(expectedCost);
+                        assertThat(discount.getPriceForOne()).isEqualTo(expectedPrice);
+                        assertThat(discount.getQuantity()).isEqualTo(quantity);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void absoluteDiscount_shouldMatchBigDecimalCalculation() {
+        for (var price : PRICES) {
+            for (var quantity : QUANTITIES) {
+                for (var absolute : ABSOLUTES) {
+                    var expectedCost = price.multiply(valueOf(quantity)).subtract(valueOf(absolute));
+                    expectedCost = expectedCost.compareTo(ZERO) > 0 ? expectedCost : ZERO;
+                    var expectedPrice = expectedCost.divide(valueOf(quantity), 2, RoundingMode.UP);
+
+                    var discount = DiscountArithmetic.absoluteDiscount(price, quantity, absolute).build();
+
+                    assertThat(discount.getTotalCost()).isEqualTo(expectedCost);
+                    assertThat(discount.getPriceForOne()).isEqualTo(expectedPrice);
+                    assertThat(discount.getQuantity()).isEqualTo(quantity);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void percentDiscount_withTooPrecisePrice_shouldThrowException() {
+        assertThatThrownBy(() -> DiscountArithmetic.percentDiscount(new BigDecimal("0.0000000001"), 1, 10, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
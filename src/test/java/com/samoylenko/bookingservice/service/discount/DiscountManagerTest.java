@@ -1,18 +1,17 @@
 package com.samoylenko.bookingservice.service.discount;
 
-import com.samoylenko.bookingservice.model.booking.BookingRequest;
+import com.samoylenko.bookingservice.config.ServiceProperties;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import com.samoylenko.bookingservice.model.voucher.DiscountType;
 import com.samoylenko.bookingservice.model.voucher.VoucherDto;
 import com.samoylenko.bookingservice.model.voucher.VoucherStatus;
-import com.samoylenko.bookingservice.service.BookingService;
+import com.samoylenko.bookingservice.service.ClientService;
 import com.samoylenko.bookingservice.service.PromotionService;
 import lombok.AllArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestConstructor;
 
@@ -20,7 +19,8 @@ import static java.math.BigDecimal.valueOf;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -34,13 +34,25 @@ public class DiscountManagerTest {
     private PromotionService promotionService;
 
     @MockBean
-    private BookingService bookingService;
+    private ClientService clientService;
+
+    @Test
+    public void init_withDisabledDiscounts_shouldLeaveOnlyVoucherHandlers() {
+        var properties = new ServiceProperties();
+        properties.setGroupDiscountEnabled(false);
+        properties.setRepeatedBookingDiscountEnabled(false);
+        var manager = new DiscountManager(properties, promotionService, clientService);
+
+        manager.init();
+
+        assertThat(manager.getPlan())
+                .extracting(Object::getClass)
+                .containsExactly(CertificateHandler.class, PromocodHandler.class);
+    }
 
     @Test
     public void calculateDiscount_shouldReturnDiscount() {
-        Page mockPage = mock(Page.class);
-        when(mockPage.getTotalElements()).thenReturn(0L);
-        when(bookingService.getBookings(any(BookingRequest.class))).thenReturn(mockPage);
+        when(clientService.hasCompletedBookings(any())).thenReturn(false);
         var discountRequest = DiscountRequest.builder()
                 .quantity(2)
                 .price(valueOf(1000))
@@ -78,6 +90,7 @@ public class DiscountManagerTest {
         assertThat(discount.getDiscountAbsolute()).isEqualTo(0);
         assertThat(discount.getPriceForOne().compareTo(valueOf(850))).isEqualTo(0);
         assertThat(discount.getTotalCost().compareTo(valueOf(1700))).isEqualTo(0);
+        verify(promotionService, times(1)).getVoucherByCode("promocode");
     }
 
     @Test
@@ -128,9 +141,7 @@ public class DiscountManagerTest {
 
     @Test
     public void calculateDiscount_forSecondBooking_shouldReturnDiscount() {
-        Page mockPage = mock(Page.class);
-        when(mockPage.getTotalElements()).thenReturn(1L);
-        when(bookingService.getBookings(any(BookingRequest.class))).thenReturn(mockPage);
+        when(clientService.hasCompletedBookings(any())).thenReturn(true);
         var discountRequest = DiscountRequest.builder()
                 .quantity(2)
                 .price(valueOf(1000))
@@ -149,9 +160,7 @@ public class DiscountManagerTest {
 
     @Test
     public void calculateDiscount_with5placesAndSecondBooking_shouldReturnDiscount() {
-        Page mockPage = mock(Page.class);
-        when(mockPage.getTotalElements()).thenReturn(1L);
-        when(bookingService.getBookings(any(BookingRequest.class))).thenReturn(mockPage);
+        when(clientService.hasCompletedBookings(any())).thenReturn(true);
         var discountRequest = DiscountRequest.builder()
                 .quantity(5)
                 .price(valueOf(1000))
@@ -1,32 +1,18 @@
 package com.samoylenko.bookingservice.service.discount;
 
-import com.samoylenko.bookingservice.config.ServiceProperties;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountStatus;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.GROUP_BOOKING;
 import static java.math.BigDecimal.valueOf;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
 
-@ExtendWith(MockitoExtension.class)
 public class GroupDiscountHandlerTest {
-    @Mock
-    private ServiceProperties serviceProperties;
-    @InjectMocks
-    private GroupDiscountHandler groupDiscountHandler;
+    private final GroupDiscountHandler groupDiscountHandler = new GroupDiscountHandler(null, 5, 15, 0);
 
     @Test
     public void calculate_forFivePlaces_shouldReturnAppliementResponse() {
-        when(serviceProperties.isGroupDiscountEnabled()).thenReturn(true);
-        when(serviceProperties.getGroupDiscountMinPlaces()).thenReturn(5);
-        when(serviceProperties.getGroupDiscountValuePercent()).thenReturn(15);
-        when(serviceProperties.getGroupDiscountValueAbsolute()).thenReturn(0);
         var discountRequest = DiscountRequest.builder()
                 .quantity(5)
                 .price(valueOf(2800))
@@ -46,8 +32,6 @@ public class GroupDiscountHandlerTest {
 
     @Test
     public void calculate_forOnePlace_shouldReturnNull() {
-        when(serviceProperties.isGroupDiscountEnabled()).thenReturn(true);
-        when(serviceProperties.getGroupDiscountMinPlaces()).thenReturn(5);
         var discountRequest = DiscountRequest.builder()
                 .quantity(1)
                 .price(valueOf(2800))
@@ -59,16 +43,20 @@ public class GroupDiscountHandlerTest {
     }
 
     @Test
-    public void calculate_withNotEnabledDiscount_shouldReturnNull() {
-        when(serviceProperties.isGroupDiscountEnabled()).thenReturn(false);
+    public void calculate_withAbsoluteDiscount_shouldApplyConfiguredValues() {
+        var handler = new GroupDiscountHandler(null, 3, 10, 100);
         var discountRequest = DiscountRequest.builder()
-                .quantity(1)
-                .price(valueOf(2800))
+                .quantity(3)
+                .price(valueOf(1100))
                 .build();
 
-        var response = groupDiscountHandler.calculateDiscount(discountRequest);
+        var response = handler.calculateDiscount(discountRequest);
 
-        assertThat(response).isNull();
+        assertThat(response).isNotNull();
+        assertThat(response.getPriceForOne().compareTo(valueOf(900))).isEqualTo(0);
+        assertThat(response.getTotalCost().compareTo(valueOf(2700))).isEqualTo(0);
+        assertThat(response.getDiscountPercent()).isEqualTo(10);
+        assertThat(response.getDiscountAbsolute()).isEqualTo(100);
     }
 
 
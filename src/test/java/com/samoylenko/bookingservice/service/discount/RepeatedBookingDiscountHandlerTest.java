@@ -1,48 +1,40 @@
 package com.samoylenko.bookingservice.service.discount;
 
-import com.samoylenko.bookingservice.config.ServiceProperties;
-import com.samoylenko.bookingservice.model.booking.BookingRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountRequest;
 import com.samoylenko.bookingservice.model.discount.DiscountStatus;
-import com.samoylenko.bookingservice.service.BookingService;
+import com.samoylenko.bookingservice.service.ClientService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
 
 import static com.samoylenko.bookingservice.model.voucher.DiscountType.REPEATED_BOOKING;
 import static java.math.BigDecimal.valueOf;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class RepeatedBookingDiscountHandlerTest {
     @Mock
-    private ServiceProperties serviceProperties;
+    private ClientService clientService;
 
-    @Mock
-    private BookingService bookingService;
-
-    @InjectMocks
     private RepeatedBookingDiscountHandler handler;
 
+    @BeforeEach
+    public void setUp() {
+        handler = new RepeatedBookingDiscountHandler(null, clientService, 15, 0);
+    }
+
     @Test
     public void calculate_withOneBooking_shouldReturnCalculateDiscount() {
-        when(serviceProperties.isRepeatedBookingDiscountEnabled()).thenReturn(true);
-        when(serviceProperties.getRepeatedBookingDiscountPercent()).thenReturn(15);
-        when(serviceProperties.getRepeatedBookingDiscountAbsolute()).thenReturn(0);
         var voucherRequest = DiscountRequest.builder()
                 .phone("testPhone")
                 .quantity(5)
                 .price(valueOf(3000))
                 .build();
-        Page mockPage = mock(Page.class);
-        when(mockPage.getTotalElements()).thenReturn(1L);
-        when(bookingService.getBookings(any(BookingRequest.class))).thenReturn(mockPage);
+        when(clientService.hasCompletedBookings(any())).thenReturn(true);
 
         var response = handler.calculateDiscount(voucherRequest);
 
@@ -58,15 +50,12 @@ public class RepeatedBookingDiscountHandlerTest {
 
     @Test
     public void calculate_withoutBooking_shouldReturnNull() {
-        when(serviceProperties.isRepeatedBookingDiscountEnabled()).thenReturn(true);
         var voucherRequest = DiscountRequest.builder()
                 .phone("testPhone")
                 .quantity(5)
                 .price(valueOf(3000))
                 .build();
-        Page mockPage = mock(Page.class);
-        when(mockPage.getTotalElements()).thenReturn(0L);
-        when(bookingService.getBookings(any(BookingRequest.class))).thenReturn(mockPage);
+        when(clientService.hasCompletedBookings(any())).thenReturn(false);
 
         var response = handler.calculateDiscount(voucherRequest);
 
@@ -35,4 +35,24 @@ public class BookingBuilderUtils {
                         jsonPath("$.id").exists().saveAs("bookingId")
                 );
     }
+
+    public static HttpRequestActionBuilder createInvoice() {
+        return http("Создание счета на оплату")
+                .post("/bookings/#{bookingId}/invoice")
+                .header("accept", "application/json")
+                .check(
+                        status().is(200),
+                        jsonPath("$.payment.invoice.invoiceUrl").exists()
+                );
+    }
+
+    public static HttpRequestActionBuilder getBooking() {
+        return http("Получение бронирования")
+                .get("/bookings/#{bookingId}")
+                .header("accept", "application/json")
+                .check(
+                        status().is(200),
+                        jsonPath("$.status").saveAs("bookingStatus")
+                );
+    }
 }
@@ -0,0 +1,57 @@
+package gatling;
+
+import io.gatling.javaapi.core.FeederBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static gatling.AuthBuilderUtils.auth;
+import static gatling.BookingBuilderUtils.*;
+import static gatling.RouteBuilderUtils.createRoute;
+import static gatling.WalkBuilderUtils.createWalk;
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.http;
+
+/**
+ * Бронирование и оплата от начала до конца. Приложение должно быть запущено
+ * с профилем paykeeper-simulator, тогда счета оплачиваются имитатором PayKeeper.
+ */
+public class BookingPaymentSimulation extends Simulation {
+    HttpProtocolBuilder httpProtocol = http.baseUrl("http://localhost:8081/api/v1")
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json");
+
+    FeederBuilder<String> routesFeeder = csv("routes.csv").circular();
+    FeederBuilder<String> walksFeeder = csv("walks.csv").shuffle().circular();
+
+    ScenarioBuilder bookingPayment = scenario("Бронирование и оплата прогулки")
+            .exec(auth())
+            .feed(routesFeeder)
+            .feed(walksFeeder)
+            .exec(session -> session
+                    .set("startTime", Instant.now().plus(7, ChronoUnit.DAYS).toString())
+                    .set("maxPlaces", 100))
+            .exec(createRoute(), createWalk())
+            .repeat(10).on(
+                    exec(createBooking(), createInvoice()),
+                    asLongAsDuring(session -> !"Заявка оплачена".equals(session.getString("bookingStatus")), Duration.ofMinutes(3)).on(
+                            pause(5),
+                            exec(getBooking())
+                    )
+            );
+
+    {
+        setUp(
+                bookingPayment.injectOpen(rampUsers(20).during(30))
+        )
+                .protocols(httpProtocol)
+                .assertions(
+                        global().responseTime().percentile4().lt(1500),
+                        global().successfulRequests().percent().gt(95d)
+                );
+    }
+}